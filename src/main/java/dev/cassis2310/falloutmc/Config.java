@@ -36,12 +36,97 @@ public class Config
             .comment("A list of items to log on common setup.")
             .defineListAllowEmpty("items", List.of("minecraft:iron_ingot"), Config::validateItemName);
 
+    private static final ModConfigSpec.IntValue RADIATION_UPDATE_BUDGET = BUILDER
+            .comment("The maximum number of radiation propagation steps processed per level, per tick. Remaining work carries over to the next tick.")
+            .defineInRange("radiationUpdateBudget", 20000, 1, Integer.MAX_VALUE);
+
+    private static final ModConfigSpec.BooleanValue RADIATION_PARALLEL_UPDATES = BUILDER
+            .comment("Whether large batches of radiation updates may be processed in parallel, across regions of the level that cannot affect each other.")
+            .define("radiationParallelUpdates", true);
+
+    private static final ModConfigSpec.IntValue RADIATION_PARALLEL_THRESHOLD = BUILDER
+            .comment("The number of chunk sections waiting for radiation updates, above which they are processed in parallel (ignoring the per tick budget).")
+            .defineInRange("radiationParallelThreshold", 256, 1, Integer.MAX_VALUE);
+
+    private static final ModConfigSpec.IntValue RADIATION_EXPOSURE_INTERVAL = BUILDER
+            .comment("How often, in ticks, each entity's radiation exposure is updated. Entities are spread evenly across the interval.")
+            .defineInRange("radiationExposureInterval", 20, 1, 1200);
+
+    private static final ModConfigSpec.DoubleValue RADIATION_DOSE_RATE = BUILDER
+            .comment("The dose absorbed per tick, per level of radiation.")
+            .defineInRange("radiationDoseRate", 0.01, 0, Double.MAX_VALUE);
+
+    private static final ModConfigSpec.DoubleValue RADIATION_DOSE_RECOVERY = BUILDER
+            .comment("The dose recovered per tick, while an entity is not exposed to any radiation.")
+            .defineInRange("radiationDoseRecovery", 0.05, 0, Double.MAX_VALUE);
+
+    private static final ModConfigSpec.DoubleValue RADIATION_DAMAGE_THRESHOLD = BUILDER
+            .comment("The dose above which entities take radiation damage.")
+            .defineInRange("radiationDamageThreshold", 200.0, 0, Double.MAX_VALUE);
+
+    private static final ModConfigSpec.DoubleValue RADIATION_DAMAGE = BUILDER
+            .comment("The damage dealt to entities above the dose threshold, each time their exposure is updated.")
+            .defineInRange("radiationDamage", 1.0, 0, Double.MAX_VALUE);
+
+    private static final ModConfigSpec.IntValue RADIATION_SYNC_DISTANCE = BUILDER
+            .comment("The distance, in chunk sections, around each player within which radiation levels are sent to their client.")
+            .defineInRange("radiationSyncDistance", 4, 0, 16);
+
+    private static final ModConfigSpec.IntValue ITEM_TRANSFER_INTERVAL = BUILDER
+            .comment("How often, in ticks, item pipe networks move a batch of items out of each inventory they extract from.")
+            .defineInRange("itemTransferInterval", 8, 1, 1200);
+
+    private static final ModConfigSpec.IntValue ITEMS_PER_TRANSFER = BUILDER
+            .comment("The largest number of items moved out of each inventory in one batch.")
+            .defineInRange("itemsPerTransfer", 16, 1, 64);
+
+    private static final ModConfigSpec.IntValue FLUID_PIPE_CAPACITY = BUILDER
+            .comment("The amount of fluid, in millibuckets, each fluid pipe adds to the capacity of its network.")
+            .defineInRange("fluidPipeCapacity", 1000, 1, 1000000);
+
+    private static final ModConfigSpec.IntValue FLUID_TRANSFER_RATE = BUILDER
+            .comment("The most fluid, in millibuckets, a fluid pipe network drains from or fills into each tank per tick.")
+            .defineInRange("fluidTransferRate", 250, 1, Integer.MAX_VALUE);
+
+    private static final ModConfigSpec.IntValue SPAWN_ATTEMPTS_PER_TICK = BUILDER
+            .comment("The number of wasteland creature spawn attempts made per level, per tick.")
+            .defineInRange("spawnAttemptsPerTick", 4, 0, 1000);
+
+    private static final ModConfigSpec.IntValue SPAWN_DENSITY_CAP = BUILDER
+            .comment("The most wasteland creatures allowed in the chunks around a spawn position, before no more are spawned there.")
+            .defineInRange("spawnDensityCap", 8, 0, 1000);
+
+    private static final ModConfigSpec.IntValue SPAWN_DENSITY_RADIUS = BUILDER
+            .comment("The radius, in chunks, around a spawn position in which wasteland creatures are counted against the density cap.")
+            .defineInRange("spawnDensityRadius", 1, 0, 8);
+
+    private static final ModConfigSpec.IntValue AI_LEVEL_OF_DETAIL_DISTANCE = BUILDER
+            .comment("The width, in chunks, of each AI level of detail tier around players. Tagged mobs in each further tier run their AI half as often. 0 disables it.")
+            .defineInRange("aiLevelOfDetailDistance", 4, 0, 32);
+
     static final ModConfigSpec SPEC = BUILDER.build();
 
     public static boolean logDirtBlock;
     public static int magicNumber;
     public static String magicNumberIntroduction;
     public static Set<Item> items;
+    public static int radiationUpdateBudget;
+    public static boolean radiationParallelUpdates;
+    public static int radiationParallelThreshold;
+    public static int radiationExposureInterval;
+    public static float radiationDoseRate;
+    public static float radiationDoseRecovery;
+    public static float radiationDamageThreshold;
+    public static float radiationDamage;
+    public static int radiationSyncDistance;
+    public static int itemTransferInterval;
+    public static int itemsPerTransfer;
+    public static int fluidPipeCapacity;
+    public static int fluidTransferRate;
+    public static int spawnAttemptsPerTick;
+    public static int spawnDensityCap;
+    public static int spawnDensityRadius;
+    public static int aiLevelOfDetailDistance;
 
     private static boolean validateItemName(final Object obj)
     {
@@ -59,5 +144,23 @@ public class Config
         items = ITEM_STRINGS.get().stream()
                 .map(itemName -> BuiltInRegistries.ITEM.get(ResourceLocation.parse(itemName)))
                 .collect(Collectors.toSet());
+
+        radiationUpdateBudget = RADIATION_UPDATE_BUDGET.get();
+        radiationParallelUpdates = RADIATION_PARALLEL_UPDATES.get();
+        radiationParallelThreshold = RADIATION_PARALLEL_THRESHOLD.get();
+        radiationExposureInterval = RADIATION_EXPOSURE_INTERVAL.get();
+        radiationDoseRate = RADIATION_DOSE_RATE.get().floatValue();
+        radiationDoseRecovery = RADIATION_DOSE_RECOVERY.get().floatValue();
+        radiationDamageThreshold = RADIATION_DAMAGE_THRESHOLD.get().floatValue();
+        radiationDamage = RADIATION_DAMAGE.get().floatValue();
+        radiationSyncDistance = RADIATION_SYNC_DISTANCE.get();
+        itemTransferInterval = ITEM_TRANSFER_INTERVAL.get();
+        itemsPerTransfer = ITEMS_PER_TRANSFER.get();
+        fluidPipeCapacity = FLUID_PIPE_CAPACITY.get();
+        fluidTransferRate = FLUID_TRANSFER_RATE.get();
+        spawnAttemptsPerTick = SPAWN_ATTEMPTS_PER_TICK.get();
+        spawnDensityCap = SPAWN_DENSITY_CAP.get();
+        spawnDensityRadius = SPAWN_DENSITY_RADIUS.get();
+        aiLevelOfDetailDistance = AI_LEVEL_OF_DETAIL_DISTANCE.get();
     }
 }
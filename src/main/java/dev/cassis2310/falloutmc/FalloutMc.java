@@ -2,6 +2,9 @@ package dev.cassis2310.falloutmc;
 
 import org.slf4j.Logger;
 
+import dev.cassis2310.falloutmc.common.FalloutMcAttachmentTypes;
+import dev.cassis2310.falloutmc.network.FalloutMcNetwork;
+
 import com.mojang.logging.LogUtils;
 
 import net.neoforged.api.distmarker.Dist;
@@ -27,6 +30,8 @@ public class FalloutMc
     public FalloutMc(IEventBus modEventBus, ModContainer modContainer)
     {
         modEventBus.addListener(this::commonSetup);
+        FalloutMcAttachmentTypes.ATTACHMENT_TYPES.register(modEventBus);
+        modEventBus.addListener(FalloutMcNetwork::registerPayloads);
         NeoForge.EVENT_BUS.register(this);
         modEventBus.addListener(this::addCreative);
         modContainer.registerConfig(ModConfig.Type.COMMON, Config.SPEC);
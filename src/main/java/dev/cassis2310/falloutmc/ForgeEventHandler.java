@@ -0,0 +1,240 @@
+package dev.cassis2310.falloutmc;
+
+import dev.cassis2310.falloutmc.common.FalloutMcAttachmentTypes;
+import dev.cassis2310.falloutmc.common.entities.MovementTracker;
+import dev.cassis2310.falloutmc.common.machines.MachineSystem;
+import dev.cassis2310.falloutmc.common.movers.EntityMoverSystem;
+import dev.cassis2310.falloutmc.common.power.PowerGridSystem;
+import dev.cassis2310.falloutmc.common.radiation.RadiationExposureSystem;
+import dev.cassis2310.falloutmc.common.radiation.RadiationPropagator;
+import dev.cassis2310.falloutmc.common.radiation.RadiationSyncSystem;
+import dev.cassis2310.falloutmc.common.spawning.SpawnDirector;
+import dev.cassis2310.falloutmc.common.transport.FluidFilter;
+import dev.cassis2310.falloutmc.common.transport.FluidTransportSystem;
+import dev.cassis2310.falloutmc.common.transport.ItemTransportSystem;
+import dev.cassis2310.falloutmc.common.vaults.SealedVolumeTracker;
+import dev.cassis2310.falloutmc.util.capabilities.CapabilityHelpers;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.neoforged.bus.api.EventPriority;
+import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.event.TagsUpdatedEvent;
+import net.neoforged.neoforge.event.entity.EntityEvent;
+import net.neoforged.neoforge.event.entity.EntityJoinLevelEvent;
+import net.neoforged.neoforge.event.entity.EntityLeaveLevelEvent;
+import net.neoforged.neoforge.event.level.BlockEvent;
+import net.neoforged.neoforge.event.level.ChunkEvent;
+import net.neoforged.neoforge.event.level.LevelEvent;
+import net.neoforged.neoforge.event.tick.LevelTickEvent;
+
+// Listeners for events fired on the game (NeoForge) event bus
+@EventBusSubscriber(modid = FalloutMc.MOD_ID)
+public class ForgeEventHandler
+{
+    // Fired after every block change that updates neighbours, including those that other listeners cancel the neighbour updates for
+    @SubscribeEvent(receiveCanceled = true)
+    public static void onNeighborNotify(BlockEvent.NeighborNotifyEvent event)
+    {
+        if (event.getLevel() instanceof ServerLevel level)
+        {
+            final SealedVolumeTracker tracker = SealedVolumeTracker.getIfPresent(level);
+            if (tracker != null)
+            {
+                tracker.onBlockChanged(event.getPos(), event.getState());
+            }
+
+            final RadiationPropagator propagator = RadiationPropagator.getIfPresent(level);
+            if (propagator != null)
+            {
+                propagator.onBlockChanged(event.getPos());
+            }
+
+            final ItemTransportSystem items = ItemTransportSystem.getIfPresent(level);
+            if (items != null)
+            {
+                items.onBlockChanged(event.getPos());
+            }
+
+            final FluidTransportSystem fluids = FluidTransportSystem.getIfPresent(level);
+            if (fluids != null)
+            {
+                fluids.onBlockChanged(event.getPos());
+            }
+
+            final PowerGridSystem power = PowerGridSystem.getIfPresent(level);
+            if (power != null)
+            {
+                power.onBlockChanged(event.getPos());
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLevelTick(LevelTickEvent.Post event)
+    {
+        if (event.getLevel() instanceof ServerLevel level)
+        {
+            final RadiationPropagator propagator = RadiationPropagator.getIfPresent(level);
+            if (propagator != null)
+            {
+                propagator.tick();
+            }
+            RadiationExposureSystem.get(level).tick();
+            RadiationSyncSystem.get(level).tick();
+
+            final ItemTransportSystem items = ItemTransportSystem.getIfPresent(level);
+            if (items != null)
+            {
+                items.tick();
+            }
+
+            final FluidTransportSystem fluids = FluidTransportSystem.getIfPresent(level);
+            if (fluids != null)
+            {
+                fluids.tick();
+            }
+
+            final PowerGridSystem power = PowerGridSystem.getIfPresent(level);
+            if (power != null)
+            {
+                power.tick();
+            }
+
+            final MachineSystem machines = MachineSystem.getIfPresent(level);
+            if (machines != null)
+            {
+                machines.tick();
+            }
+
+            final MovementTracker movement = MovementTracker.getIfPresent(level);
+            if (movement != null)
+            {
+                movement.tick();
+            }
+
+            if (SpawnDirector.isEnabled())
+            {
+                SpawnDirector.get(level).tick();
+            }
+        }
+
+        // Movers run on both sides, so the client predicts its own player's movement
+        final EntityMoverSystem movers = EntityMoverSystem.getIfPresent(event.getLevel());
+        if (movers != null)
+        {
+            movers.tick();
+        }
+    }
+
+    // Lowest priority, so entities whose joining is cancelled by other listeners are not counted
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onEntityJoinLevel(EntityJoinLevelEvent event)
+    {
+        if (event.getLevel() instanceof ServerLevel level)
+        {
+            final RadiationExposureSystem exposure = RadiationExposureSystem.getIfPresent(level);
+            if (exposure != null)
+            {
+                exposure.onEntityJoin(event.getEntity());
+            }
+
+            if (SpawnDirector.isEnabled())
+            {
+                SpawnDirector.get(level).onEntityJoin(event.getEntity());
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeaveLevel(EntityLeaveLevelEvent event)
+    {
+        // Also fired for client levels, on the render thread, so must not touch the server's trackers or spawn directors
+        if (event.getLevel() instanceof ServerLevel level)
+        {
+            final RadiationExposureSystem exposure = RadiationExposureSystem.getIfPresent(level);
+            if (exposure != null)
+            {
+                exposure.onEntityLeave(event.getEntity());
+            }
+
+            final MovementTracker movement = MovementTracker.getIfPresent(level);
+            if (movement != null)
+            {
+                movement.untrack(event.getEntity());
+            }
+
+            final SpawnDirector spawns = SpawnDirector.getIfPresent(level);
+            if (spawns != null)
+            {
+                spawns.onEntityLeave(event.getEntity());
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onEntityEnteringSection(EntityEvent.EnteringSection event)
+    {
+        if (event.didChunkChange() && event.getEntity().level() instanceof ServerLevel level)
+        {
+            final SpawnDirector spawns = SpawnDirector.getIfPresent(level);
+            if (spawns != null)
+            {
+                spawns.onEntityMoved(event.getEntity(), event.getNewPos());
+            }
+        }
+    }
+
+    // Radiation saved with a chunk must keep responding to block changes after a restart, before any new source is set
+    @SubscribeEvent
+    public static void onChunkLoad(ChunkEvent.Load event)
+    {
+        if (event.getLevel() instanceof ServerLevel level && event.getChunk() instanceof LevelChunk chunk && chunk.hasData(FalloutMcAttachmentTypes.CHUNK_RADIATION))
+        {
+            RadiationPropagator.get(level);
+        }
+    }
+
+    // Fired before the chunk is saved, so the fluid taken out of pipes in it is saved with it
+    @SubscribeEvent
+    public static void onChunkUnload(ChunkEvent.Unload event)
+    {
+        if (event.getLevel() instanceof ServerLevel level && event.getChunk() instanceof LevelChunk chunk)
+        {
+            final FluidTransportSystem fluids = FluidTransportSystem.getIfPresent(level);
+            if (fluids != null)
+            {
+                fluids.onChunkUnloaded(chunk);
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event)
+    {
+        SealedVolumeTracker.remove(event.getLevel());
+        RadiationPropagator.remove(event.getLevel());
+        RadiationExposureSystem.remove(event.getLevel());
+        RadiationSyncSystem.remove(event.getLevel());
+        ItemTransportSystem.remove(event.getLevel());
+        FluidTransportSystem.remove(event.getLevel());
+        PowerGridSystem.remove(event.getLevel());
+        MachineSystem.remove(event.getLevel());
+        EntityMoverSystem.remove(event.getLevel());
+        MovementTracker.remove(event.getLevel());
+        SpawnDirector.remove(event.getLevel());
+    }
+
+    // Capability providers, fluid filters and spawn pools may depend on tags, so anything cached from them must be recomputed
+    @SubscribeEvent
+    public static void onTagsUpdated(TagsUpdatedEvent event)
+    {
+        // Also fired on the client thread in singleplayer, while the server thread may be using these
+        if (event.shouldUpdateStaticData())
+        {
+            CapabilityHelpers.clearCapabilityCache();
+            FluidFilter.refreshAll();
+            SpawnDirector.clearPools();
+        }
+    }
+}
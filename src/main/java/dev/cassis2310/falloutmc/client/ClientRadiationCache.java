@@ -0,0 +1,55 @@
+package dev.cassis2310.falloutmc.client;
+
+import dev.cassis2310.falloutmc.common.radiation.RadiationSectionCodec;
+import dev.cassis2310.falloutmc.network.RadiationSyncPayload;
+import dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.Level;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The radiation levels around the local player, as sent by the server in {@link RadiationSyncPayload}s. Only sections near the player are
+ * known, and everything else reads as zero.
+ */
+public class ClientRadiationCache {
+    private static final Long2ObjectOpenHashMap<byte[]> SECTIONS = new Long2ObjectOpenHashMap<>();
+    @Nullable private static Level level;
+
+    /**
+     * @param pos The position.
+     * @return The radiation level at the position, as last sent by the server.
+     */
+    public static int getRadiation(BlockPos pos) {
+        final byte[] section = SECTIONS.get(SectionPos.asLong(pos));
+        return section == null ? 0 : section[PackedPosHelpers.sectionIndex(pos.getX(), pos.getY(), pos.getZ())] & 0xFF;
+    }
+
+    /**
+     * Applies a payload from the server. Called on the main thread.
+     */
+    public static void handle(RadiationSyncPayload payload, IPayloadContext context) {
+        final Level playerLevel = context.player().level();
+        if (playerLevel != level) {
+            SECTIONS.clear();
+            level = playerLevel;
+        }
+
+        // Forget sections which the server no longer keeps us up to date with
+        final int centerX = SectionPos.x(payload.center()), centerY = SectionPos.y(payload.center()), centerZ = SectionPos.z(payload.center());
+        final int distance = payload.distance();
+        SECTIONS.keySet().removeIf((long pos) -> Math.abs(SectionPos.x(pos) - centerX) > distance || Math.abs(SectionPos.y(pos) - centerY) > distance || Math.abs(SectionPos.z(pos) - centerZ) > distance);
+
+        for (RadiationSyncPayload.Section section : payload.sections()) {
+            final byte[] levels = RadiationSectionCodec.decode(Unpooled.wrappedBuffer(section.data()), SECTIONS.get(section.pos()));
+            if (levels == null) {
+                SECTIONS.remove(section.pos());
+            } else {
+                SECTIONS.put(section.pos(), levels);
+            }
+        }
+    }
+}
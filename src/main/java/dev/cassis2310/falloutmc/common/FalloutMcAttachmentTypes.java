@@ -0,0 +1,32 @@
+package dev.cassis2310.falloutmc.common;
+
+import dev.cassis2310.falloutmc.FalloutMc;
+import dev.cassis2310.falloutmc.common.radiation.ChunkRadiation;
+import dev.cassis2310.falloutmc.common.radiation.RadiationExposure;
+import dev.cassis2310.falloutmc.common.transport.ChunkPipeFluids;
+import net.neoforged.neoforge.attachment.AttachmentType;
+import net.neoforged.neoforge.attachment.IAttachmentHolder;
+import net.neoforged.neoforge.registries.DeferredHolder;
+import net.neoforged.neoforge.registries.DeferredRegister;
+import net.neoforged.neoforge.registries.NeoForgeRegistries;
+
+import java.util.function.Function;
+
+public class FalloutMcAttachmentTypes {
+    public static final DeferredRegister<AttachmentType<?>> ATTACHMENT_TYPES = DeferredRegister.create(NeoForgeRegistries.ATTACHMENT_TYPES, FalloutMc.MOD_ID);
+
+    /**
+     * Per-block radiation levels, attached to chunks.
+     */
+    public static final DeferredHolder<AttachmentType<?>, AttachmentType<ChunkRadiation>> CHUNK_RADIATION = ATTACHMENT_TYPES.register("chunk_radiation", () -> AttachmentType.serializable((Function<IAttachmentHolder, ChunkRadiation>) ChunkRadiation::new).build());
+
+    /**
+     * The radiation dose absorbed by living entities.
+     */
+    public static final DeferredHolder<AttachmentType<?>, AttachmentType<RadiationExposure>> RADIATION_EXPOSURE = ATTACHMENT_TYPES.register("radiation_exposure", () -> AttachmentType.serializable(RadiationExposure::new).build());
+
+    /**
+     * The fluid held by fluid pipes, attached to chunks.
+     */
+    public static final DeferredHolder<AttachmentType<?>, AttachmentType<ChunkPipeFluids>> PIPE_FLUIDS = ATTACHMENT_TYPES.register("pipe_fluids", () -> AttachmentType.serializable(ChunkPipeFluids::new).build());
+}
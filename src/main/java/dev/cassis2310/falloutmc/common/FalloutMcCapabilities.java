@@ -0,0 +1,15 @@
+package dev.cassis2310.falloutmc.common;
+
+import dev.cassis2310.falloutmc.common.power.PowerHandler;
+import dev.cassis2310.falloutmc.util.resources.ResourceLocationHelpers;
+import net.minecraft.core.Direction;
+import net.neoforged.neoforge.capabilities.BlockCapability;
+import org.jetbrains.annotations.Nullable;
+
+public class FalloutMcCapabilities {
+    /**
+     * Blocks which produce or consume power (generators, fusion core sockets, machines), and connect to power grids. Queried on the side
+     * facing the cable.
+     */
+    public static final BlockCapability<PowerHandler, @Nullable Direction> POWER = BlockCapability.createSided(ResourceLocationHelpers.identifier("power"), PowerHandler.class);
+}
@@ -0,0 +1,13 @@
+package dev.cassis2310.falloutmc.common;
+
+import dev.cassis2310.falloutmc.util.resources.ResourceLocationHelpers;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.damagesource.DamageType;
+
+public class FalloutMcDamageTypes {
+    /**
+     * Damage from an absorbed radiation dose. Defined in {@code data/falloutmc/damage_type/radiation.json}.
+     */
+    public static final ResourceKey<DamageType> RADIATION = ResourceKey.create(Registries.DAMAGE_TYPE, ResourceLocationHelpers.identifier("radiation"));
+}
@@ -0,0 +1,36 @@
+package dev.cassis2310.falloutmc.common;
+
+import dev.cassis2310.falloutmc.util.resources.ResourceLocationHelpers;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.block.Block;
+
+public class FalloutMcTags {
+    public static class Blocks {
+        /**
+         * Blocks which seal an enclosed volume, even though they do not have a full collision shape (for instance, vault doors).
+         */
+        public static final TagKey<Block> AIRTIGHT = create("airtight");
+
+        /**
+         * Blocks which strongly absorb radiation passing through them, such as lead.
+         */
+        public static final TagKey<Block> RADIATION_SHIELDING = create("radiation_shielding");
+
+        private static TagKey<Block> create(String name) {
+            return TagKey.create(Registries.BLOCK, ResourceLocationHelpers.identifier(name));
+        }
+    }
+
+    public static class Entities {
+        /**
+         * Mobs whose AI is run less often while they are far from players (see {@link dev.cassis2310.falloutmc.common.entities.AiLevelOfDetail}).
+         */
+        public static final TagKey<EntityType<?>> AI_LEVEL_OF_DETAIL = create("ai_level_of_detail");
+
+        private static TagKey<EntityType<?>> create(String name) {
+            return TagKey.create(Registries.ENTITY_TYPE, ResourceLocationHelpers.identifier(name));
+        }
+    }
+}
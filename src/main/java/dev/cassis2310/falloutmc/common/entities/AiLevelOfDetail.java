@@ -0,0 +1,122 @@
+package dev.cassis2310.falloutmc.common.entities;
+
+import dev.cassis2310.falloutmc.Config;
+import dev.cassis2310.falloutmc.common.FalloutMcTags;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.player.Player;
+
+/**
+ * Runs the AI of mobs far from every player less often. Only mobs in {@link FalloutMcTags.Entities#AI_LEVEL_OF_DETAIL} are affected.
+ * <p>
+ * Each mob is placed in a tier by its distance, in chunks, to the nearest player: every {@link Config#aiLevelOfDetailDistance} chunks is
+ * one tier further, up to tier {@code TIERS - 1}. A mob in tier {@code n} decides what to do (senses, and ticks its goal and target
+ * selectors) once every {@code 2^n} ticks, and so starts new paths less often too. The tick it decides on is offset by its id, as vanilla
+ * does for goal selection, so the mobs in a tier are spread evenly across the interval rather than all deciding on the same tick.
+ * <p>
+ * Only decisions are slowed. Navigation, movement, look and jump controls still run every tick, so a far mob walks along its path at the
+ * same speed, and is only slower to react. Mobs which are fighting, were just hurt, are leashed, or are riding or being ridden always run
+ * their full AI, however far they are. The tier is worked out again every {@link #TIER_INTERVAL} ticks, rather than every tick.
+ */
+public class AiLevelOfDetail {
+    /**
+     * The number of tiers. The furthest tier runs its AI once every {@code 2^(TIERS - 1)} ticks.
+     */
+    public static final int TIERS = 4;
+
+    /**
+     * The tier of a mob which has not been placed in a tier yet.
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * The tier of a mob which is not in the tag, and always runs its full AI.
+     */
+    public static final int UNMANAGED = -2;
+
+    private static final int TIER_INTERVAL = 20;
+
+    private static final long[] AI_STEPS = new long[TIERS];
+    private static final long[] SKIPPED = new long[TIERS];
+
+    /**
+     * Checks if a mob should run its full AI this tick. Called at the start of each of the mob's AI steps, on the server.
+     *
+     * @param mob The mob.
+     * @return {@code true} if the mob should sense and tick its goals this tick.
+     */
+    public static boolean shouldTickAi(Mob mob) {
+        if (Config.aiLevelOfDetailDistance <= 0) {
+            return true;
+        }
+        final AiLevelOfDetailHolder holder = (AiLevelOfDetailHolder) mob;
+        final long time = mob.level().getGameTime();
+        int tier = holder.falloutmc$getAiTier();
+        if (tier == UNKNOWN || time - holder.falloutmc$getAiTierTime() >= TIER_INTERVAL) {
+            tier = computeTier(mob);
+            holder.falloutmc$setAiTier(tier, time);
+        }
+        if (tier == UNMANAGED) {
+            return true;
+        }
+        if (tier > 0 && isEngaged(mob)) {
+            tier = 0;
+        }
+        // Vanilla only selects goals when tickCount + id is even, and just ticks the running ones otherwise. Using the same phase keeps
+        // every allowed tick on one where goals can start and stop.
+        final int interval = 1 << tier;
+        final boolean tick = ((mob.tickCount + mob.getId()) & (interval - 1)) == 0;
+        AI_STEPS[tier]++;
+        if (!tick) {
+            SKIPPED[tier]++;
+        }
+        return tick;
+    }
+
+    /**
+     * @param tier A tier, in {@code [0, TIERS)}.
+     * @return The number of AI steps taken by managed mobs in the tier, and how many of those were skipped.
+     */
+    public static Stats getStats(int tier) {
+        return new Stats(AI_STEPS[tier], SKIPPED[tier]);
+    }
+
+    /**
+     * Resets the counts for every tier to zero, for instance at the start of a measurement.
+     */
+    public static void resetStats() {
+        for (int tier = 0; tier < TIERS; tier++) {
+            AI_STEPS[tier] = 0;
+            SKIPPED[tier] = 0;
+        }
+    }
+
+    private static int computeTier(Mob mob) {
+        if (!mob.getType().is(FalloutMcTags.Entities.AI_LEVEL_OF_DETAIL)) {
+            return UNMANAGED;
+        }
+        final int chunkX = SectionPos.blockToSectionCoord(mob.getBlockX()), chunkZ = SectionPos.blockToSectionCoord(mob.getBlockZ());
+        int nearest = Integer.MAX_VALUE;
+        for (Player player : mob.level().players()) {
+            if (!player.isSpectator()) {
+                final int dx = Math.abs(SectionPos.blockToSectionCoord(player.getBlockX()) - chunkX);
+                final int dz = Math.abs(SectionPos.blockToSectionCoord(player.getBlockZ()) - chunkZ);
+                nearest = Math.min(nearest, Math.max(dx, dz));
+            }
+        }
+        return Math.min(TIERS - 1, nearest / Config.aiLevelOfDetailDistance);
+    }
+
+    /**
+     * Mobs doing any of these would visibly misbehave if they reacted late, so always run their full AI.
+     */
+    private static boolean isEngaged(Mob mob) {
+        return mob.getTarget() != null || mob.hurtTime > 0 || mob.isLeashed() || mob.isPassenger() || mob.isVehicle();
+    }
+
+    /**
+     * @param aiSteps The number of AI steps taken.
+     * @param skipped The number of those steps in which the mob did not sense or tick its goals.
+     */
+    public record Stats(long aiSteps, long skipped) {}
+}
@@ -0,0 +1,22 @@
+package dev.cassis2310.falloutmc.common.entities;
+
+/**
+ * Implemented on every {@link net.minecraft.world.entity.Mob} by mixin, to store its {@link AiLevelOfDetail} tier on the mob itself.
+ */
+public interface AiLevelOfDetailHolder {
+    /**
+     * @return The mob's tier, or {@link AiLevelOfDetail#UNKNOWN} if it has not been worked out yet.
+     */
+    int falloutmc$getAiTier();
+
+    /**
+     * @return The game time at which the mob's tier was last worked out.
+     */
+    long falloutmc$getAiTierTime();
+
+    /**
+     * @param tier The mob's tier.
+     * @param time The current game time.
+     */
+    void falloutmc$setAiTier(int tier, long time);
+}
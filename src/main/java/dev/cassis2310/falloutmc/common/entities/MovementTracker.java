@@ -0,0 +1,267 @@
+package dev.cassis2310.falloutmc.common.entities;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.level.LevelAccessor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the recent positions of tracked entities in a level, so that systems can ask how far an entity has moved over several ticks, or be
+ * told when it moves, instead of checking every entity every tick.
+ * <p>
+ * Each tracked entity has a ring buffer of its last {@link #HISTORY_LENGTH} positions, in primitive arrays, which is written once per tick.
+ * {@link #hasMoved(Entity, double, int)} compares the current position with the one {@code ticks} ago, which takes constant time however
+ * long the window is. Note that this is the net displacement over the window, so an entity which walks away and comes back has not moved.
+ * <p>
+ * {@linkplain #subscribe Subscriptions} are notified when an entity moves more than a given distance from where it was when last
+ * notified. Systems which only care about moving entities can subscribe, and skip stationary entities entirely.
+ * <p>
+ * Entities are tracked from when they are first tracked or subscribed to, until they leave the level.
+ */
+public class MovementTracker {
+    /**
+     * The number of ticks of positions kept for each entity.
+     */
+    public static final int HISTORY_LENGTH = 32;
+
+    private static final Map<LevelAccessor, MovementTracker> TRACKERS = new IdentityHashMap<>();
+
+    /**
+     * Returns the tracker for a level, creating it if necessary.
+     *
+     * @param level The level.
+     * @return The tracker for that level.
+     */
+    public static MovementTracker get(ServerLevel level) {
+        return TRACKERS.computeIfAbsent(level, key -> new MovementTracker());
+    }
+
+    /**
+     * @param level The level.
+     * @return The tracker for the level, or {@code null} if no entities have been tracked in it.
+     */
+    @Nullable
+    public static MovementTracker getIfPresent(LevelAccessor level) {
+        return TRACKERS.get(level);
+    }
+
+    /**
+     * Discards the tracker for a level, when the level is unloaded.
+     *
+     * @param level The level.
+     */
+    public static void remove(LevelAccessor level) {
+        TRACKERS.remove(level);
+    }
+
+    private final Int2ObjectOpenHashMap<History> histories = new Int2ObjectOpenHashMap<>();
+    private final Int2ObjectOpenHashMap<History> pending = new Int2ObjectOpenHashMap<>();
+    private final IntArrayList untracked = new IntArrayList();
+    private boolean ticking;
+
+    private MovementTracker() {}
+
+    /**
+     * Starts recording an entity's position, if it is not already being recorded. Its history starts with its current position.
+     *
+     * @param entity The entity.
+     */
+    public void track(Entity entity) {
+        history(entity);
+    }
+
+    /**
+     * Stops recording an entity's position, and cancels every subscription to it. Called when the entity leaves the level.
+     *
+     * @param entity The entity.
+     */
+    public void untrack(Entity entity) {
+        pending.remove(entity.getId());
+        if (ticking) {
+            untracked.add(entity.getId());
+        } else {
+            histories.remove(entity.getId());
+        }
+    }
+
+    /**
+     * @param entity An entity.
+     * @return {@code true} if the entity's position is being recorded.
+     */
+    public boolean isTracked(Entity entity) {
+        return histories.containsKey(entity.getId()) || pending.containsKey(entity.getId());
+    }
+
+    /**
+     * Checks if an entity has moved more than a distance over the last few ticks. Entities which are not tracked are treated as not having
+     * moved, and windows longer than the recorded history are measured from the oldest recorded position.
+     *
+     * @param entity   The entity.
+     * @param distance The distance, in blocks.
+     * @param ticks    The number of ticks to look back, in {@code [1, HISTORY_LENGTH)}.
+     * @return {@code true} if the entity is more than {@code distance} from where it was {@code ticks} ticks ago.
+     */
+    public boolean hasMoved(Entity entity, double distance, int ticks) {
+        final History history = histories.get(entity.getId());
+        if (history == null) {
+            return false;
+        }
+        final int back = Math.min(ticks, history.count - 1);
+        final int then = Math.floorMod(history.head - back, HISTORY_LENGTH);
+        final double dx = history.xs[history.head] - history.xs[then];
+        final double dy = history.ys[history.head] - history.ys[then];
+        final double dz = history.zs[history.head] - history.zs[then];
+        return dx * dx + dy * dy + dz * dz > distance * distance;
+    }
+
+    /**
+     * Calls a listener whenever an entity moves more than a distance away from where it was when the listener was subscribed, or last
+     * called. The entity is tracked, if it was not already.
+     *
+     * @param entity   The entity.
+     * @param distance The distance, in blocks.
+     * @param listener The listener.
+     * @return The subscription, which can be {@linkplain Subscription#cancel() cancelled}.
+     */
+    public Subscription subscribe(Entity entity, double distance, Listener listener) {
+        final History history = history(entity);
+        final Subscription subscription = new Subscription(history, distance * distance, listener, entity.getX(), entity.getY(), entity.getZ());
+        history.subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Records the position of every tracked entity, and notifies subscriptions of any which have moved far enough. Called once per level
+     * tick, after entities have ticked.
+     */
+    public void tick() {
+        ticking = true;
+        try {
+            recordAll();
+        } finally {
+            ticking = false;
+        }
+        // Changes made by listeners are only applied now, as changing the map while iterating it may rehash it
+        for (int i = 0; i < untracked.size(); i++) {
+            histories.remove(untracked.getInt(i));
+        }
+        untracked.clear();
+        if (!pending.isEmpty()) {
+            histories.putAll(pending);
+            pending.clear();
+        }
+    }
+
+    private void recordAll() {
+        for (ObjectIterator<Int2ObjectMap.Entry<History>> it = histories.int2ObjectEntrySet().fastIterator(); it.hasNext(); ) {
+            final History history = it.next().getValue();
+            if (history.entity.isRemoved()) {
+                it.remove();
+                continue;
+            }
+            final double x = history.entity.getX(), y = history.entity.getY(), z = history.entity.getZ();
+            history.record(x, y, z);
+            // Backwards, so listeners may cancel their own subscription
+            for (int i = history.subscriptions.size() - 1; i >= 0; i--) {
+                if (i < history.subscriptions.size()) {
+                    history.subscriptions.get(i).check(x, y, z);
+                }
+            }
+        }
+    }
+
+    private History history(Entity entity) {
+        History history = histories.get(entity.getId());
+        if (history == null || history.entity != entity || (ticking && untracked.contains(entity.getId()))) {
+            final Int2ObjectOpenHashMap<History> target = ticking ? pending : histories;
+            history = target.get(entity.getId());
+            if (history == null || history.entity != entity) {
+                history = new History(entity);
+                target.put(entity.getId(), history);
+            }
+        }
+        return history;
+    }
+
+    private static final class History {
+        final Entity entity;
+        final double[] xs = new double[HISTORY_LENGTH];
+        final double[] ys = new double[HISTORY_LENGTH];
+        final double[] zs = new double[HISTORY_LENGTH];
+        final List<Subscription> subscriptions = new ArrayList<>(0);
+        int head = -1;
+        int count;
+
+        History(Entity entity) {
+            this.entity = entity;
+            record(entity.getX(), entity.getY(), entity.getZ());
+        }
+
+        void record(double x, double y, double z) {
+            head = (head + 1) % HISTORY_LENGTH;
+            xs[head] = x;
+            ys[head] = y;
+            zs[head] = z;
+            if (count < HISTORY_LENGTH) {
+                count++;
+            }
+        }
+    }
+
+    /**
+     * A listener subscribed to an entity's movement.
+     */
+    public static final class Subscription {
+        private final History history;
+        private final double distanceSqr;
+        private final Listener listener;
+        private double anchorX, anchorY, anchorZ;
+
+        private Subscription(History history, double distanceSqr, Listener listener, double x, double y, double z) {
+            this.history = history;
+            this.distanceSqr = distanceSqr;
+            this.listener = listener;
+            this.anchorX = x;
+            this.anchorY = y;
+            this.anchorZ = z;
+        }
+
+        /**
+         * Stops notifying the listener.
+         */
+        public void cancel() {
+            history.subscriptions.remove(this);
+        }
+
+        private void check(double x, double y, double z) {
+            final double dx = x - anchorX, dy = y - anchorY, dz = z - anchorZ;
+            if (dx * dx + dy * dy + dz * dz > distanceSqr) {
+                anchorX = x;
+                anchorY = y;
+                anchorZ = z;
+                listener.onMoved(history.entity);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called while the tracker is ticking. This may track and untrack entities, and subscribe and cancel subscriptions. Tracking changes
+         * made from here are applied once every entity has been recorded, so entities first tracked here are only recorded from the next
+         * tick.
+         *
+         * @param entity The entity which moved.
+         */
+        void onMoved(Entity entity);
+    }
+}
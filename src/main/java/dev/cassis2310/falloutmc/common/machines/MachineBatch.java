@@ -0,0 +1,146 @@
+package dev.cassis2310.falloutmc.common.machines;
+
+import net.minecraft.core.BlockPos;
+
+import java.util.Arrays;
+
+/**
+ * The state of every machine of one {@link MachineType} in a level, stored as parallel primitive columns rather than one object per
+ * machine. The machine at index {@code i} has position {@code positions[i]}, progress {@code progress[i]}, and so on, for
+ * {@code i < size()}.
+ * <p>
+ * Machines are removed by moving the last machine into the removed slot, so the columns stay packed, and a machine's index may change. Code
+ * outside of {@link MachineType#tick} should refer to machines through their {@link MachineHandle}, which is kept up to date.
+ * <p>
+ * Columns are exposed directly to {@link MachineType}s, so a whole batch can be ticked with one loop over arrays. They may be reallocated
+ * when machines are added, so must not be held on to between ticks.
+ */
+public class MachineBatch {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * No recipe is being processed.
+     */
+    public static final int NO_RECIPE = -1;
+
+    long[] positions = new long[INITIAL_CAPACITY];
+    int[] recipes = new int[INITIAL_CAPACITY];
+    int[] progress = new int[INITIAL_CAPACITY];
+    int[] durations = new int[INITIAL_CAPACITY];
+    int[] energy = new int[INITIAL_CAPACITY];
+    MachineHandle[] handles = new MachineHandle[INITIAL_CAPACITY];
+    boolean[] ticking = new boolean[INITIAL_CAPACITY];
+    int size;
+
+    private final MachineType type;
+
+    MachineBatch(MachineType type) {
+        this.type = type;
+    }
+
+    /**
+     * @return The type of every machine in this batch.
+     */
+    public MachineType getType() {
+        return type;
+    }
+
+    /**
+     * @return The number of machines in this batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The packed positions of each machine.
+     */
+    public long[] positions() {
+        return positions;
+    }
+
+    /**
+     * @return The recipe id of each machine, or {@link #NO_RECIPE}. What recipe ids mean is up to the machine type.
+     */
+    public int[] recipes() {
+        return recipes;
+    }
+
+    /**
+     * @return The progress of each machine through its current recipe, in ticks.
+     */
+    public int[] progress() {
+        return progress;
+    }
+
+    /**
+     * @return The number of ticks each machine's current recipe takes.
+     */
+    public int[] durations() {
+        return durations;
+    }
+
+    /**
+     * @return The energy stored in each machine.
+     */
+    public int[] energy() {
+        return energy;
+    }
+
+    /**
+     * @return For each machine, if its chunk is ticking blocks this tick. Updated by the {@link MachineSystem} before each tick.
+     */
+    public boolean[] ticking() {
+        return ticking;
+    }
+
+    /**
+     * @param index The index of a machine.
+     * @return The handle of the machine.
+     */
+    public MachineHandle handle(int index) {
+        return handles[index];
+    }
+
+    MachineHandle add(BlockPos pos) {
+        if (size == positions.length) {
+            final int capacity = size * 2;
+            positions = Arrays.copyOf(positions, capacity);
+            recipes = Arrays.copyOf(recipes, capacity);
+            progress = Arrays.copyOf(progress, capacity);
+            durations = Arrays.copyOf(durations, capacity);
+            energy = Arrays.copyOf(energy, capacity);
+            handles = Arrays.copyOf(handles, capacity);
+            ticking = Arrays.copyOf(ticking, capacity);
+        }
+        final int index = size++;
+        final MachineHandle handle = new MachineHandle(this, index);
+        positions[index] = pos.asLong();
+        recipes[index] = NO_RECIPE;
+        progress[index] = 0;
+        durations[index] = 0;
+        energy[index] = 0;
+        handles[index] = handle;
+        ticking[index] = false;
+        return handle;
+    }
+
+    /**
+     * Removes the machine at {@code index}, by moving the last machine into its place.
+     */
+    void remove(int index) {
+        final int last = --size;
+        handles[index].index = -1;
+        if (index != last) {
+            positions[index] = positions[last];
+            recipes[index] = recipes[last];
+            progress[index] = progress[last];
+            durations[index] = durations[last];
+            energy[index] = energy[last];
+            handles[index] = handles[last];
+            handles[index].index = index;
+            ticking[index] = ticking[last];
+        }
+        handles[last] = null;
+    }
+}
@@ -0,0 +1,91 @@
+package dev.cassis2310.falloutmc.common.machines;
+
+import net.minecraft.core.BlockPos;
+
+/**
+ * A reference to one machine in a {@link MachineBatch}, held by the machine's block entity.
+ * <p>
+ * The block entity itself holds no state, and does not tick: it reads and writes its state through the handle, and saves it with
+ * {@code saveAdditional}. The handle stays valid while the machine's index in the batch changes, until it is {@linkplain #remove()
+ * removed}.
+ */
+public final class MachineHandle {
+    private final MachineBatch batch;
+    int index;
+
+    MachineHandle(MachineBatch batch, int index) {
+        this.batch = batch;
+        this.index = index;
+    }
+
+    /**
+     * @return {@code true} until the machine has been removed.
+     */
+    public boolean isValid() {
+        return index >= 0;
+    }
+
+    /**
+     * Removes the machine from its batch, when its block entity is removed or unloaded. Does nothing if it has already been removed.
+     */
+    public void remove() {
+        if (index >= 0) {
+            batch.remove(index);
+        }
+    }
+
+    public BlockPos getPos() {
+        return BlockPos.of(batch.positions[checkIndex()]);
+    }
+
+    public int getRecipe() {
+        return batch.recipes[checkIndex()];
+    }
+
+    public int getProgress() {
+        return batch.progress[checkIndex()];
+    }
+
+    public int getDuration() {
+        return batch.durations[checkIndex()];
+    }
+
+    public int getEnergy() {
+        return batch.energy[checkIndex()];
+    }
+
+    /**
+     * Starts processing a recipe, from the beginning.
+     *
+     * @param recipe   The recipe id, or {@link MachineBatch#NO_RECIPE} to stop processing.
+     * @param duration The number of ticks the recipe takes.
+     */
+    public void setRecipe(int recipe, int duration) {
+        final int i = checkIndex();
+        batch.recipes[i] = recipe;
+        batch.durations[i] = duration;
+        batch.progress[i] = 0;
+    }
+
+    /**
+     * Restores the state of the machine, for instance when its block entity is loaded.
+     */
+    public void load(int recipe, int progress, int duration, int energy) {
+        final int i = checkIndex();
+        batch.recipes[i] = recipe;
+        batch.progress[i] = progress;
+        batch.durations[i] = duration;
+        batch.energy[i] = energy;
+    }
+
+    public void setEnergy(int energy) {
+        batch.energy[checkIndex()] = energy;
+    }
+
+    private int checkIndex() {
+        if (index < 0) {
+            throw new IllegalStateException("Machine has been removed");
+        }
+        return index;
+    }
+}
@@ -0,0 +1,131 @@
+package dev.cassis2310.falloutmc.common.machines;
+
+import it.unimi.dsi.fastutil.longs.Long2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelAccessor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Ticks every machine in a level, one {@link MachineType} at a time, instead of each machine's block entity ticking itself.
+ * <p>
+ * The state of all machines of a type is kept in a single {@link MachineBatch} of primitive columns, so ticking them is one loop over a few
+ * arrays, with one call per type rather than per machine. Machine block entities become thin handles: they {@linkplain #register register}
+ * in {@code onLoad}, keep the returned {@link MachineHandle}, and {@linkplain MachineHandle#remove() remove} it in {@code setRemoved} and
+ * {@code onChunkUnloaded}. They should not have a block entity ticker.
+ * <p>
+ * Types are ticked in the order they were first registered in the level, so ticking is deterministic. As with block entity tickers, only
+ * machines in chunks which are ticking blocks are ticked: before each type ticks, every machine's {@linkplain MachineBatch#ticking()
+ * ticking} flag is updated, checking each chunk once per tick.
+ */
+public class MachineSystem {
+    private static final Map<LevelAccessor, MachineSystem> SYSTEMS = new IdentityHashMap<>();
+
+    /**
+     * Returns the machine system for a level, creating it if necessary.
+     *
+     * @param level The level.
+     * @return The machine system for that level.
+     */
+    public static MachineSystem get(ServerLevel level) {
+        return SYSTEMS.computeIfAbsent(level, key -> new MachineSystem(level));
+    }
+
+    /**
+     * @param level The level.
+     * @return The machine system for the level, or {@code null} if no machines have been registered in it.
+     */
+    @Nullable
+    public static MachineSystem getIfPresent(LevelAccessor level) {
+        return SYSTEMS.get(level);
+    }
+
+    /**
+     * Discards the machine system for a level, when the level is unloaded.
+     *
+     * @param level The level.
+     */
+    public static void remove(LevelAccessor level) {
+        SYSTEMS.remove(level);
+    }
+
+    private final ServerLevel level;
+    private final Reference2ObjectLinkedOpenHashMap<MachineType, MachineBatch> batches = new Reference2ObjectLinkedOpenHashMap<>();
+    private final Long2BooleanOpenHashMap tickingChunks = new Long2BooleanOpenHashMap();
+
+    private MachineSystem(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Adds a machine, with no recipe and no energy.
+     *
+     * @param type The type of the machine.
+     * @param pos  The position of the machine.
+     * @return The handle through which the machine's block entity reads and writes its state.
+     */
+    public MachineHandle register(MachineType type, BlockPos pos) {
+        return batches.computeIfAbsent(type, MachineBatch::new).add(pos);
+    }
+
+    /**
+     * @param type A machine type.
+     * @return The number of machines of that type in this level.
+     */
+    public int count(MachineType type) {
+        final MachineBatch batch = batches.get(type);
+        return batch == null ? 0 : batch.size;
+    }
+
+    /**
+     * Ticks every machine. Called once per level tick.
+     */
+    public void tick() {
+        for (MachineBatch batch : batches.values()) {
+            if (batch.size > 0 && updateTicking(batch)) {
+                batch.getType().tick(level, batch);
+            }
+        }
+        tickingChunks.clear();
+    }
+
+    /**
+     * @return {@code true} if any machine in the batch is ticking.
+     */
+    private boolean updateTicking(MachineBatch batch) {
+        final long[] positions = batch.positions;
+        final boolean[] ticking = batch.ticking;
+        boolean any = false;
+        long lastChunk = 0;
+        boolean lastTicking = false;
+        for (int i = 0; i < batch.size; i++) {
+            final long chunk = ChunkPos.asLong(SectionPos.blockToSectionCoord(BlockPos.getX(positions[i])), SectionPos.blockToSectionCoord(BlockPos.getZ(positions[i])));
+            // Machines are often next to each other, so skip the lookup when the chunk is the same as the last machine's
+            if (i == 0 || chunk != lastChunk) {
+                lastChunk = chunk;
+                lastTicking = isTicking(chunk);
+            }
+            ticking[i] = lastTicking;
+            any |= lastTicking;
+        }
+        return any;
+    }
+
+    /**
+     * The chunk checks a block entity ticker makes before ticking (see {@code LevelChunk.isTicking}).
+     */
+    private boolean isTicking(long chunk) {
+        if (tickingChunks.containsKey(chunk)) {
+            return tickingChunks.get(chunk);
+        }
+        final boolean ticking = level.shouldTickBlocksAt(chunk) && level.areEntitiesLoaded(chunk);
+        tickingChunks.put(chunk, ticking);
+        return ticking;
+    }
+}
@@ -0,0 +1,25 @@
+package dev.cassis2310.falloutmc.common.machines;
+
+import net.minecraft.server.level.ServerLevel;
+
+/**
+ * The behaviour shared by every machine of one kind. Rather than each machine ticking itself, a type ticks every machine of its kind in a
+ * level at once, with one loop over the columns of their {@link MachineBatch}.
+ * <p>
+ * Types are compared by identity, so each should be a single shared instance.
+ */
+@FunctionalInterface
+public interface MachineType {
+    /**
+     * Ticks every machine in a batch. Called once per level tick, if any machine in the batch is in a chunk which is ticking blocks.
+     * Machines in other chunks, whose {@linkplain MachineBatch#ticking() ticking} flag is {@code false}, must be skipped, as a block
+     * entity ticker would be.
+     * <p>
+     * Machines must not be added or removed while looping over the batch, as that moves other machines around. Anything which may do so
+     * (such as handing out results) should be collected, and done after the loop.
+     *
+     * @param level The level.
+     * @param batch The machines.
+     */
+    void tick(ServerLevel level, MachineBatch batch);
+}
@@ -0,0 +1,70 @@
+package dev.cassis2310.falloutmc.common.machines;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+
+/**
+ * A machine which works through recipes, spending a fixed amount of energy on each tick of progress. This covers most simple machines
+ * (purifiers, presses, furnaces...), which differ only in what their recipes are.
+ * <p>
+ * Each tick is one loop over the batch's columns. Machines which finish a recipe are collected, and passed to the {@link CompletionHandler}
+ * after the loop, with their progress reset, so the handler may freely change the level, including removing machines.
+ */
+public class ProcessingMachineType implements MachineType {
+    private final int energyPerTick;
+    private final CompletionHandler onComplete;
+    private final IntArrayList completed = new IntArrayList();
+
+    /**
+     * @param energyPerTick The energy spent on each tick of progress. Machines without enough energy make no progress.
+     * @param onComplete    Called for each machine which finishes its recipe.
+     */
+    public ProcessingMachineType(int energyPerTick, CompletionHandler onComplete) {
+        this.energyPerTick = energyPerTick;
+        this.onComplete = onComplete;
+    }
+
+    @Override
+    public void tick(ServerLevel level, MachineBatch batch) {
+        final int size = batch.size;
+        final int[] recipes = batch.recipes, progress = batch.progress, durations = batch.durations, energy = batch.energy;
+        final boolean[] ticking = batch.ticking;
+        final int cost = energyPerTick;
+        for (int i = 0; i < size; i++) {
+            if (!ticking[i] || recipes[i] == MachineBatch.NO_RECIPE || energy[i] < cost) {
+                continue;
+            }
+            energy[i] -= cost;
+            if (++progress[i] >= durations[i]) {
+                progress[i] = 0;
+                completed.add(i);
+            }
+        }
+        if (completed.isEmpty()) {
+            return;
+        }
+
+        // Resolve handles first, as completing one machine may move the others
+        final MachineHandle[] handles = new MachineHandle[completed.size()];
+        for (int i = 0; i < handles.length; i++) {
+            handles[i] = batch.handles[completed.getInt(i)];
+        }
+        completed.clear();
+        for (MachineHandle handle : handles) {
+            if (handle.isValid()) {
+                onComplete.onComplete(level, handle.getPos(), handle);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface CompletionHandler {
+        /**
+         * @param level  The level.
+         * @param pos    The position of the machine.
+         * @param handle The machine, whose recipe is still set, and may be changed.
+         */
+        void onComplete(ServerLevel level, BlockPos pos, MachineHandle handle);
+    }
+}
@@ -0,0 +1,133 @@
+package dev.cassis2310.falloutmc.common.movers;
+
+import dev.cassis2310.falloutmc.util.entities.EntityHelpers;
+import it.unimi.dsi.fastutil.objects.ReferenceArrayList;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.LevelAccessor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves entities standing on conveyors and turntables in a level.
+ * <p>
+ * Each conveyor or turntable registers its whole {@link MoverArea} once, rather than each of its blocks moving entities from
+ * {@code stepOn}. Each tick, every area collects the entities on it with a single query, and moves them all. An entity is moved at most
+ * once per tick, by the first area it is found in, even where areas overlap or it touches several of an area's blocks.
+ * <p>
+ * Areas must be registered on both sides. Players control their own movement, so they are only moved on the client, by the local player's
+ * level; every other entity is only moved on the server. Both sides use the same movement (see {@link EntityHelpers#rotateEntity}), so the
+ * client's prediction of its own player matches the server.
+ * <p>
+ * In singleplayer, client levels are used on the render thread while server levels are used on the server thread, so each side keeps its
+ * own map of systems, which is only ever touched by that side's thread.
+ */
+public class EntityMoverSystem {
+    private static final Map<LevelAccessor, EntityMoverSystem> CLIENT_SYSTEMS = new IdentityHashMap<>();
+    private static final Map<LevelAccessor, EntityMoverSystem> SERVER_SYSTEMS = new IdentityHashMap<>();
+
+    /**
+     * Returns the mover system for a level, creating it if necessary.
+     *
+     * @param level The level, on either side.
+     * @return The mover system for that level.
+     */
+    public static EntityMoverSystem get(Level level) {
+        return systems(level).computeIfAbsent(level, key -> new EntityMoverSystem(level));
+    }
+
+    /**
+     * @param level The level.
+     * @return The mover system for the level, or {@code null} if no areas have been registered in it.
+     */
+    @Nullable
+    public static EntityMoverSystem getIfPresent(LevelAccessor level) {
+        return systems(level).get(level);
+    }
+
+    /**
+     * Discards the mover system for a level, when the level is unloaded.
+     *
+     * @param level The level.
+     */
+    public static void remove(LevelAccessor level) {
+        systems(level).remove(level);
+    }
+
+    private static Map<LevelAccessor, EntityMoverSystem> systems(LevelAccessor level) {
+        return level.isClientSide() ? CLIENT_SYSTEMS : SERVER_SYSTEMS;
+    }
+
+    private final Level level;
+    private final List<MoverArea> areas = new ReferenceArrayList<>();
+    private final Set<Entity> moved = new ReferenceOpenHashSet<>();
+
+    private EntityMoverSystem(Level level) {
+        this.level = level;
+    }
+
+    /**
+     * Starts moving entities on an area, for instance from its block entity's {@code onLoad}.
+     *
+     * @param area The area.
+     */
+    public void register(MoverArea area) {
+        areas.add(area);
+    }
+
+    /**
+     * Stops moving entities on an area. Areas are compared by identity, so this must be the same instance that was registered.
+     *
+     * @param area The area.
+     */
+    public void unregister(MoverArea area) {
+        areas.remove(area);
+    }
+
+    /**
+     * @return The registered areas.
+     */
+    public List<MoverArea> getAreas() {
+        return Collections.unmodifiableList(areas);
+    }
+
+    /**
+     * Moves every entity standing on an area. Called once per level tick.
+     */
+    public void tick() {
+        for (MoverArea area : areas) {
+            for (Entity entity : level.getEntitiesOfClass(Entity.class, area.bounds(), this::isMovedHere)) {
+                if (moved.add(entity)) {
+                    move(area, entity);
+                }
+            }
+        }
+        moved.clear();
+    }
+
+    private void move(MoverArea area, Entity entity) {
+        if (area.isTurntable()) {
+            EntityHelpers.rotateEntity(level, entity, area.origin(), area.rotationSpeed());
+        } else if (entity.onGround()) {
+            entity.setDeltaMovement(entity.getDeltaMovement().add(area.velocity()));
+            entity.hurtMarked = true;
+        }
+    }
+
+    /**
+     * Players are moved by their own client, and everything else by the server.
+     */
+    private boolean isMovedHere(Entity entity) {
+        if (entity.isSpectator() || entity.isPassenger()) {
+            return false;
+        }
+        return level.isClientSide ? entity instanceof Player player && player.isLocalPlayer() : !(entity instanceof Player);
+    }
+}
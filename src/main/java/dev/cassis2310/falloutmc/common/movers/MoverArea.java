@@ -0,0 +1,54 @@
+package dev.cassis2310.falloutmc.common.movers;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.Vec3;
+
+/**
+ * An area which moves the entities standing on it: a conveyor, which carries them in a straight line, or a turntable, which turns them
+ * around its center. Registered with an {@link EntityMoverSystem}.
+ *
+ * @param bounds        The space above the area's blocks, in which entities are moved.
+ * @param origin        The center of rotation.
+ * @param velocity      The movement added to each entity per tick, for conveyors.
+ * @param rotationSpeed The rotation per tick, in degrees, for turntables.
+ */
+public record MoverArea(AABB bounds, Vec3 origin, Vec3 velocity, float rotationSpeed) {
+    /**
+     * @param from      One corner of the conveyor's blocks.
+     * @param to        The opposite corner of the conveyor's blocks.
+     * @param direction The horizontal direction entities are carried in.
+     * @param speed     The speed, in blocks per tick, added to each entity per tick.
+     * @return A conveyor covering the blocks between the two corners.
+     */
+    public static MoverArea conveyor(BlockPos from, BlockPos to, Direction direction, float speed) {
+        final AABB bounds = surface(from, to);
+        return new MoverArea(bounds, bounds.getCenter(), Vec3.atLowerCornerOf(direction.getNormal()).scale(speed), 0);
+    }
+
+    /**
+     * @param center The center block of the turntable.
+     * @param radius The number of blocks the turntable extends from its center, horizontally.
+     * @param speed  The rotation per tick, in degrees.
+     * @return A turntable of {@code (2 * radius + 1)} by {@code (2 * radius + 1)} blocks.
+     */
+    public static MoverArea turntable(BlockPos center, int radius, float speed) {
+        return new MoverArea(surface(center.offset(-radius, 0, -radius), center.offset(radius, 0, radius)), Vec3.atBottomCenterOf(center.above()), Vec3.ZERO, speed);
+    }
+
+    /**
+     * The space just above the top of the blocks between two corners, where entities standing on them are.
+     */
+    private static AABB surface(BlockPos from, BlockPos to) {
+        final int top = Math.max(from.getY(), to.getY()) + 1;
+        return new AABB(Math.min(from.getX(), to.getX()), top, Math.min(from.getZ(), to.getZ()), Math.max(from.getX(), to.getX()) + 1, top + 0.5, Math.max(from.getZ(), to.getZ()) + 1);
+    }
+
+    /**
+     * @return {@code true} if this area rotates entities, rather than carrying them.
+     */
+    public boolean isTurntable() {
+        return rotationSpeed != 0;
+    }
+}
@@ -0,0 +1,65 @@
+package dev.cassis2310.falloutmc.common.networks;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+
+/**
+ * A connected set of blocks (pipes, cables...) tracked by a {@link BlockNetworkGraph}. Subclasses hold whatever is cached for the
+ * network as a whole, and are told when its blocks change, so they can invalidate it.
+ *
+ * @param <N> The type of the network itself.
+ */
+public abstract class BlockNetwork<N extends BlockNetwork<N>> {
+    final LongOpenHashSet nodes = new LongOpenHashSet();
+    boolean removed;
+
+    /**
+     * @return The number of blocks in the network.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * @param pos A packed position.
+     * @return {@code true} if the position is part of this network.
+     */
+    public boolean contains(long pos) {
+        return nodes.contains(pos);
+    }
+
+    /**
+     * @return An unmodifiable view of the packed positions in this network.
+     */
+    public LongSet nodes() {
+        return LongSets.unmodifiable(nodes);
+    }
+
+    /**
+     * @return {@code true} if this network has been merged into another, or lost its last block, and is no longer part of the graph.
+     */
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    /**
+     * Called after blocks have been added to or removed from this network, including by merges and splits.
+     */
+    protected void onTopologyChanged() {}
+
+    /**
+     * Called after every block of {@code other} has been moved into this network. {@code other} is removed from the graph.
+     *
+     * @param other The network which was merged in.
+     */
+    protected void onMerged(N other) {}
+
+    /**
+     * Called after this network has been created from part of {@code from}, which was split in two by a block being removed. This network's
+     * blocks have already been moved out of {@code from}.
+     *
+     * @param from The network this was split from.
+     */
+    protected void onSplit(N from) {}
+}
@@ -0,0 +1,289 @@
+package dev.cassis2310.falloutmc.common.networks;
+
+import dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.core.BlockPos;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a set of blocks (pipes, cables...) grouped into connected {@linkplain BlockNetwork networks}, and keeps the grouping up to date
+ * incrementally as blocks are added and removed. Two blocks are connected if they are adjacent.
+ * <p>
+ * Adding a block costs six hash lookups, plus moving the blocks of every smaller network it joins into the largest. Removing a block runs
+ * one breadth first search from each of its (at most six) neighbours, interleaved, in the same way as
+ * {@link dev.cassis2310.falloutmc.common.vaults.SealedVolumeTracker} splits volumes: searches which meet are merged, and a search which
+ * runs out of blocks first has found a separate component, which is split off as a new network. This costs time proportional to the
+ * smaller side(s) of the split, not the whole network.
+ * <p>
+ * Networks are notified of every change through {@link BlockNetwork#onTopologyChanged()}, so anything cached for a network only needs to
+ * be recomputed for the networks which actually changed.
+ *
+ * @param <N> The type of network.
+ */
+public class BlockNetworkGraph<N extends BlockNetwork<N>> {
+    private final Supplier<N> factory;
+    private final Long2ObjectOpenHashMap<N> networksByNode = new Long2ObjectOpenHashMap<>();
+    private final Set<N> networks = new ReferenceOpenHashSet<>();
+    private final List<N> neighbours = new ArrayList<>(6);
+
+    /**
+     * @param factory Creates a new, empty network.
+     */
+    public BlockNetworkGraph(Supplier<N> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Adds a block to the graph, joining the networks of its neighbours together if it connects more than one.
+     *
+     * @param pos The packed position of the block.
+     * @return The network the block is now part of.
+     */
+    public N add(long pos) {
+        final N existing = networksByNode.get(pos);
+        if (existing != null) {
+            return existing;
+        }
+        neighbours.clear();
+        for (int i = 0; i < 6; i++) {
+            final N neighbour = networksByNode.get(PackedPosHelpers.relative(pos, i));
+            if (neighbour != null && !neighbours.contains(neighbour)) {
+                neighbours.add(neighbour);
+            }
+        }
+
+        final N network;
+        if (neighbours.isEmpty()) {
+            network = factory.get();
+            networks.add(network);
+        } else {
+            // Merge into the largest network, so the fewest blocks are moved
+            N largest = neighbours.getFirst();
+            for (N neighbour : neighbours) {
+                if (neighbour.size() > largest.size()) {
+                    largest = neighbour;
+                }
+            }
+            network = largest;
+            for (N neighbour : neighbours) {
+                if (neighbour != network) {
+                    merge(network, neighbour);
+                }
+            }
+        }
+        network.nodes.add(pos);
+        networksByNode.put(pos, network);
+        network.onTopologyChanged();
+        return network;
+    }
+
+    /**
+     * @see #add(long)
+     */
+    public N add(BlockPos pos) {
+        return add(pos.asLong());
+    }
+
+    /**
+     * Removes a block from the graph, splitting its network if the block was the only connection between parts of it.
+     *
+     * @param pos The packed position of the block.
+     * @return The network the block was part of, or {@code null} if it was not in the graph.
+     */
+    @Nullable
+    public N remove(long pos) {
+        final N network = networksByNode.remove(pos);
+        if (network == null) {
+            return null;
+        }
+        network.nodes.remove(pos);
+        if (network.nodes.isEmpty()) {
+            networks.remove(network);
+            network.removed = true;
+            network.onTopologyChanged();
+            return network;
+        }
+
+        final long[] seeds = new long[6];
+        int count = 0;
+        for (int i = 0; i < 6; i++) {
+            final long neighbour = PackedPosHelpers.relative(pos, i);
+            if (network.nodes.contains(neighbour)) {
+                seeds[count++] = neighbour;
+            }
+        }
+        split(network, seeds, count);
+        network.onTopologyChanged();
+        return network;
+    }
+
+    /**
+     * @see #remove(long)
+     */
+    @Nullable
+    public N remove(BlockPos pos) {
+        return remove(pos.asLong());
+    }
+
+    /**
+     * @param pos A packed position.
+     * @return The network containing the position, or {@code null} if it is not in the graph.
+     */
+    @Nullable
+    public N getNetwork(long pos) {
+        return networksByNode.get(pos);
+    }
+
+    /**
+     * @see #getNetwork(long)
+     */
+    @Nullable
+    public N getNetwork(BlockPos pos) {
+        return networksByNode.get(pos.asLong());
+    }
+
+    /**
+     * @param pos A packed position.
+     * @return {@code true} if the position is part of any network.
+     */
+    public boolean contains(long pos) {
+        return networksByNode.containsKey(pos);
+    }
+
+    /**
+     * @return The number of blocks in the graph.
+     */
+    public int size() {
+        return networksByNode.size();
+    }
+
+    /**
+     * @return Every network in the graph.
+     */
+    public Collection<N> getNetworks() {
+        return Collections.unmodifiableSet(networks);
+    }
+
+    /**
+     * Moves every block of {@code other} into {@code network}, and removes {@code other} from the graph.
+     */
+    private void merge(N network, N other) {
+        for (LongIterator it = other.nodes.iterator(); it.hasNext(); ) {
+            final long node = it.nextLong();
+            network.nodes.add(node);
+            networksByNode.put(node, network);
+        }
+        other.nodes.clear();
+        other.removed = true;
+        networks.remove(other);
+        network.onMerged(other);
+    }
+
+    /**
+     * Searches outwards from each seed, one block per search at a time, until all searches have either met, or run out of blocks. Any group
+     * of searches which runs out of blocks before meeting the rest has found a disconnected component, which is split off.
+     */
+    private void split(N network, long[] seeds, int count) {
+        if (count <= 1) {
+            return;
+        }
+        final int[] parent = new int[count];
+        final boolean[] exhausted = new boolean[count];
+        final LongArrayFIFOQueue[] queues = new LongArrayFIFOQueue[count];
+        final Long2IntOpenHashMap owners = new Long2IntOpenHashMap();
+        owners.defaultReturnValue(-1);
+        for (int i = 0; i < count; i++) {
+            parent[i] = i;
+            queues[i] = new LongArrayFIFOQueue();
+            queues[i].enqueue(seeds[i]);
+            owners.put(seeds[i], i);
+        }
+
+        int groups = count;
+        while (groups > 1) {
+            for (int i = 0; i < count && groups > 1; i++) {
+                final int root = find(parent, i);
+                if (exhausted[root]) {
+                    continue;
+                }
+                if (queues[i].isEmpty()) {
+                    if (isGroupEmpty(parent, queues, root)) {
+                        exhausted[root] = true;
+                        groups--;
+                        detach(network, owners, parent, root);
+                    }
+                    continue;
+                }
+                final long current = queues[i].dequeueLong();
+                for (int direction = 0; direction < 6; direction++) {
+                    final long neighbour = PackedPosHelpers.relative(current, direction);
+                    if (!network.nodes.contains(neighbour)) {
+                        continue;
+                    }
+                    final int owner = owners.get(neighbour);
+                    if (owner == -1) {
+                        owners.put(neighbour, i);
+                        queues[i].enqueue(neighbour);
+                    } else {
+                        final int ownerRoot = find(parent, owner), ourRoot = find(parent, i);
+                        if (ownerRoot != ourRoot) {
+                            parent[ownerRoot] = ourRoot;
+                            groups--;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves every block found by the searches in the group {@code root} out of {@code network}, and into a new network.
+     */
+    private void detach(N network, Long2IntOpenHashMap owners, int[] parent, int root) {
+        final LongOpenHashSet nodes = new LongOpenHashSet();
+        for (Long2IntMap.Entry entry : owners.long2IntEntrySet()) {
+            if (find(parent, entry.getIntValue()) == root) {
+                nodes.add(entry.getLongKey());
+            }
+        }
+        final N detached = factory.get();
+        network.nodes.removeAll(nodes);
+        detached.nodes.addAll(nodes);
+        for (LongIterator it = nodes.iterator(); it.hasNext(); ) {
+            networksByNode.put(it.nextLong(), detached);
+        }
+        networks.add(detached);
+        detached.onSplit(network);
+        detached.onTopologyChanged();
+    }
+
+    private static boolean isGroupEmpty(int[] parent, LongArrayFIFOQueue[] queues, int root) {
+        for (int i = 0; i < queues.length; i++) {
+            if (find(parent, i) == root && !queues[i].isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+}
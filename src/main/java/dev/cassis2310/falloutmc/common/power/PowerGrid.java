@@ -0,0 +1,91 @@
+package dev.cassis2310.falloutmc.common.power;
+
+import dev.cassis2310.falloutmc.common.networks.BlockNetwork;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.Direction;
+import net.neoforged.neoforge.capabilities.BlockCapabilityCache;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+
+/**
+ * A connected network of power cables, tracked by a {@link PowerGridSystem}, along with the cached total supply and demand of every
+ * {@link PowerHandler} connected to it.
+ * <p>
+ * The totals are only recomputed when the grid is marked dirty: when its cables change, when a block next to it changes, or when a
+ * connected handler reports a change of load.
+ */
+public class PowerGrid extends BlockNetwork<PowerGrid> {
+    static final Endpoint[] NO_ENDPOINTS = new Endpoint[0];
+
+    private final Set<PowerGrid> dirtyGrids;
+    Endpoint[] endpoints = NO_ENDPOINTS;
+    final LongOpenHashSet endpointTargets = new LongOpenHashSet();
+    boolean endpointsDirty = true;
+    int generation;
+    int notifiedGeneration;
+    long supply;
+    long demand;
+    float satisfaction;
+
+    PowerGrid(Set<PowerGrid> dirtyGrids) {
+        this.dirtyGrids = dirtyGrids;
+    }
+
+    /**
+     * @return The total power produced per tick by every connected handler.
+     */
+    public long getSupply() {
+        return supply;
+    }
+
+    /**
+     * @return The total power consumed per tick by every connected handler, while fully powered.
+     */
+    public long getDemand() {
+        return demand;
+    }
+
+    /**
+     * @return The fraction of demand met by supply, in {@code [0, 1]}.
+     */
+    public float getSatisfaction() {
+        return satisfaction;
+    }
+
+    /**
+     * Marks the cached totals as out of date. They are recomputed at the end of the tick.
+     */
+    public void markDirty() {
+        dirtyGrids.add(this);
+    }
+
+    /**
+     * Marks the connected handlers, as well as the totals, as out of date.
+     */
+    public void invalidateEndpoints() {
+        endpointsDirty = true;
+        markDirty();
+    }
+
+    @Override
+    protected void onTopologyChanged() {
+        invalidateEndpoints();
+    }
+
+    @Override
+    protected void onMerged(PowerGrid other) {
+        // The other grid's handlers are now connected to this one, and will be found again when its endpoints are recomputed
+        other.endpoints = NO_ENDPOINTS;
+    }
+
+    /**
+     * A handler connected to the grid.
+     *
+     * @param cable  The packed position of the cable the handler is connected to.
+     * @param side   The direction of the handler, from the cable.
+     * @param target The packed position of the handler.
+     * @param cache  The handler, as seen from the cable.
+     */
+    record Endpoint(long cable, Direction side, long target, BlockCapabilityCache<PowerHandler, @Nullable Direction> cache) {}
+}
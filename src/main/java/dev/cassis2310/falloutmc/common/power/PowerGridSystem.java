@@ -0,0 +1,254 @@
+package dev.cassis2310.falloutmc.common.power;
+
+import dev.cassis2310.falloutmc.common.FalloutMcCapabilities;
+import dev.cassis2310.falloutmc.common.networks.BlockNetworkGraph;
+import dev.cassis2310.falloutmc.util.capabilities.CapabilityHelpers;
+import dev.cassis2310.falloutmc.util.directions.DirectionHelpers;
+import dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.LevelAccessor;
+import net.neoforged.neoforge.capabilities.BlockCapabilityCache;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Solves supply and demand for the power grids in a level.
+ * <p>
+ * Cables are added and removed by their blocks, and grouped into {@link PowerGrid}s by a {@link BlockNetworkGraph}, which merges and splits
+ * grids incrementally. Each grid caches the {@link PowerHandler}s connected to it, found through {@link FalloutMcCapabilities#POWER}, and
+ * their total supply and demand. Nothing is solved per tick: grids are only marked dirty when
+ * <ul>
+ *     <li>their cables change, or they are merged or split,</li>
+ *     <li>a block next to one of their cables becomes, or stops being, a power handler, or</li>
+ *     <li>a connected handler reports a change of supply or demand, through {@link #onLoadChanged(BlockPos)}.</li>
+ * </ul>
+ * At the end of a tick, only the dirty grids are recomputed, and their handlers are told if the fraction of demand they can meet has
+ * changed. When nothing has changed, a tick does no work at all.
+ * <p>
+ * The system lives only in memory, so cables must be added again (for instance, from their block entity's {@code onLoad}) when a level is
+ * loaded.
+ */
+public class PowerGridSystem {
+    private static final Map<LevelAccessor, PowerGridSystem> SYSTEMS = new IdentityHashMap<>();
+
+    /**
+     * Returns the power grid system for a level, creating it if necessary.
+     *
+     * @param level The level.
+     * @return The power grid system for that level.
+     */
+    public static PowerGridSystem get(ServerLevel level) {
+        return SYSTEMS.computeIfAbsent(level, key -> new PowerGridSystem(level));
+    }
+
+    /**
+     * @param level The level.
+     * @return The power grid system for the level, or {@code null} if no cables have been added to it.
+     */
+    @Nullable
+    public static PowerGridSystem getIfPresent(LevelAccessor level) {
+        return SYSTEMS.get(level);
+    }
+
+    /**
+     * Discards the power grid system for a level, when the level is unloaded.
+     *
+     * @param level The level.
+     */
+    public static void remove(LevelAccessor level) {
+        SYSTEMS.remove(level);
+    }
+
+    private final ServerLevel level;
+    private final Set<PowerGrid> dirtyGrids = new ReferenceOpenHashSet<>();
+    private final BlockNetworkGraph<PowerGrid> graph = new BlockNetworkGraph<>(() -> new PowerGrid(dirtyGrids));
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private final List<PowerGrid> updating = new ArrayList<>();
+    private int gridsRecomputed;
+
+    private PowerGridSystem(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Adds a cable, when it is placed or loaded.
+     *
+     * @param pos The position of the cable.
+     * @return The grid the cable is now part of.
+     */
+    public PowerGrid addCable(BlockPos pos) {
+        return graph.add(pos);
+    }
+
+    /**
+     * Removes a cable, when it is broken or unloaded.
+     *
+     * @param pos The position of the cable.
+     */
+    public void removeCable(BlockPos pos) {
+        graph.remove(pos);
+    }
+
+    /**
+     * @param pos A position.
+     * @return The grid of the cable at the position, or {@code null} if there is no cable there.
+     */
+    @Nullable
+    public PowerGrid getGrid(BlockPos pos) {
+        return graph.getNetwork(pos);
+    }
+
+    /**
+     * Marks every grid a power handler is connected to as dirty, when the handler's supply or demand changes.
+     *
+     * @param pos The position of the handler.
+     */
+    public void onLoadChanged(BlockPos pos) {
+        final long key = pos.asLong();
+        for (int direction = 0; direction < 6; direction++) {
+            final PowerGrid grid = graph.getNetwork(PackedPosHelpers.relative(key, direction));
+            if (grid != null) {
+                grid.markDirty();
+            }
+        }
+    }
+
+    /**
+     * Invalidates the handlers of any grid bordering {@code pos}, if the block there has become, or stopped being, a power handler.
+     *
+     * @param pos The position which changed.
+     */
+    public void onBlockChanged(BlockPos pos) {
+        final long key = pos.asLong();
+        if (graph.contains(key)) {
+            return; // Changes to the cables themselves are handled by adding and removing them
+        }
+        for (Direction direction : DirectionHelpers.DIRECTIONS) {
+            final PowerGrid grid = graph.getNetwork(PackedPosHelpers.relative(key, direction));
+            if (grid != null && !grid.endpointsDirty) {
+                final boolean isHandler = CapabilityHelpers.getCapability(FalloutMcCapabilities.POWER, level, pos, direction) != null;
+                if (isHandler != grid.endpointTargets.contains(key)) {
+                    grid.invalidateEndpoints();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of grids which have been recomputed, for measuring how much work changes cause.
+     */
+    public int getGridsRecomputed() {
+        return gridsRecomputed;
+    }
+
+    /**
+     * Recomputes every dirty grid. Called once per level tick.
+     */
+    public void tick() {
+        if (dirtyGrids.isEmpty()) {
+            return;
+        }
+        // Handlers may report new loads while being updated, which are left for the next tick
+        updating.addAll(dirtyGrids);
+        dirtyGrids.clear();
+
+        // Disconnect handlers which have left every grid first, so that a grid which gained them is updated after
+        for (PowerGrid grid : updating) {
+            final PowerGrid.Endpoint[] previous = grid.endpoints;
+            if (grid.isRemoved()) {
+                grid.endpoints = PowerGrid.NO_ENDPOINTS;
+                disconnect(previous, null);
+            } else if (grid.endpointsDirty) {
+                computeEndpoints(grid);
+                disconnect(previous, grid);
+            }
+        }
+        for (PowerGrid grid : updating) {
+            if (!grid.isRemoved()) {
+                recompute(grid);
+            }
+        }
+        updating.clear();
+    }
+
+    /**
+     * Recomputes the totals of a grid, and tells its handlers if the fraction of demand met has changed.
+     */
+    private void recompute(PowerGrid grid) {
+        long supply = 0, demand = 0;
+        for (PowerGrid.Endpoint endpoint : grid.endpoints) {
+            final PowerHandler handler = endpoint.cache().getCapability();
+            if (handler != null) {
+                supply += handler.getPowerSupply();
+                demand += handler.getPowerDemand();
+            }
+        }
+        final float satisfaction = demand == 0 ? 1 : (float) Math.min(1.0, (double) supply / demand);
+        final boolean changed = satisfaction != grid.satisfaction || grid.generation != grid.notifiedGeneration;
+        grid.supply = supply;
+        grid.demand = demand;
+        grid.satisfaction = satisfaction;
+        gridsRecomputed++;
+        if (changed) {
+            grid.notifiedGeneration = grid.generation;
+            for (PowerGrid.Endpoint endpoint : grid.endpoints) {
+                final PowerHandler handler = endpoint.cache().getCapability();
+                if (handler != null) {
+                    handler.onPowerChanged(satisfaction);
+                }
+            }
+        }
+    }
+
+    /**
+     * Tells each handler in {@code previous} which is no longer connected to {@code grid} that it has been disconnected.
+     */
+    private void disconnect(PowerGrid.Endpoint[] previous, @Nullable PowerGrid grid) {
+        for (PowerGrid.Endpoint endpoint : previous) {
+            if (grid == null || !grid.endpointTargets.contains(endpoint.target())) {
+                final PowerHandler handler = endpoint.cache().getCapability();
+                if (handler != null) {
+                    handler.onPowerChanged(0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds every handler connected to a grid.
+     */
+    private void computeEndpoints(PowerGrid grid) {
+        final int generation = ++grid.generation; // Stops the caches of the previous endpoints from invalidating the grid
+        final List<PowerGrid.Endpoint> endpoints = new ArrayList<>();
+        grid.endpointTargets.clear();
+
+        for (LongIterator it = grid.nodes().iterator(); it.hasNext(); ) {
+            final long cable = it.nextLong();
+            for (Direction side : DirectionHelpers.DIRECTIONS) {
+                final long target = PackedPosHelpers.relative(cable, side);
+                if (graph.contains(target) || grid.endpointTargets.contains(target) || !level.isLoaded(PackedPosHelpers.setMutable(cursor, target))) {
+                    continue; // Handlers touching several cables are only counted once
+                }
+                if (CapabilityHelpers.getCapability(FalloutMcCapabilities.POWER, level, cursor, side.getOpposite()) == null) {
+                    continue;
+                }
+                final BlockCapabilityCache<PowerHandler, @Nullable Direction> cache = BlockCapabilityCache.create(FalloutMcCapabilities.POWER, level, cursor.immutable(), side.getOpposite(),
+                    () -> !grid.isRemoved() && grid.generation == generation, grid::invalidateEndpoints);
+                endpoints.add(new PowerGrid.Endpoint(cable, side, target, cache));
+                grid.endpointTargets.add(target);
+            }
+        }
+
+        grid.endpoints = endpoints.toArray(PowerGrid.NO_ENDPOINTS);
+        grid.endpointsDirty = false;
+    }
+}
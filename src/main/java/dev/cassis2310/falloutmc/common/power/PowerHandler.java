@@ -0,0 +1,33 @@
+package dev.cassis2310.falloutmc.common.power;
+
+/**
+ * A block which produces or consumes power, exposed through {@link dev.cassis2310.falloutmc.common.FalloutMcCapabilities#POWER}.
+ * <p>
+ * Power grids cache the supply and demand of every handler connected to them, and only ask again after
+ * {@link PowerGridSystem#onLoadChanged} is called for the handler's position. Handlers must call it whenever their supply or demand
+ * changes.
+ */
+public interface PowerHandler {
+    /**
+     * @return The power this block produces per tick.
+     */
+    default int getPowerSupply() {
+        return 0;
+    }
+
+    /**
+     * @return The power this block consumes per tick, while fully powered.
+     */
+    default int getPowerDemand() {
+        return 0;
+    }
+
+    /**
+     * Called when the fraction of demand met by the grid this block is connected to changes, including when it is connected to a new grid,
+     * or disconnected.
+     *
+     * @param satisfaction The fraction of demand met by the grid's supply, in {@code [0, 1]}. A grid with no demand is fully satisfied, and a
+     *                     disconnected block has a satisfaction of zero.
+     */
+    default void onPowerChanged(float satisfaction) {}
+}
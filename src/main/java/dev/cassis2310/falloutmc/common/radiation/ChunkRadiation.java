@@ -0,0 +1,241 @@
+package dev.cassis2310.falloutmc.common.radiation;
+
+import dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.SectionPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.world.level.LevelHeightAccessor;
+import net.neoforged.neoforge.attachment.IAttachmentHolder;
+import net.neoforged.neoforge.common.util.INBTSerializable;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The radiation levels of every block in a chunk, attached to the chunk as {@link dev.cassis2310.falloutmc.common.FalloutMcAttachmentTypes#CHUNK_RADIATION}.
+ * <p>
+ * Levels are unsigned values in {@code [0, 255]}, stored as one {@code byte[4096]} per chunk section, indexed as in
+ * {@link PackedPosHelpers#sectionIndex(int, int, int)}. Sections with no radiation have no array at all, so a chunk without any radiation
+ * costs a single small object, and reads from it are a null check. Arrays are taken from, and returned to, the {@link RadiationArrayPool}.
+ * <p>
+ * The {@link RadiationPropagator}'s sources in the chunk are kept here too, and saved alongside the levels, so the propagator can tell
+ * which levels come from a source after the chunk is loaded again.
+ */
+public class ChunkRadiation implements INBTSerializable<CompoundTag> {
+    public static final int SECTION_SIZE = 16 * 16 * 16;
+    public static final int MAX_LEVEL = 255;
+
+    private final int minSection;
+    private final byte[][] sections;
+    private final short[] nonZeroCounts;
+    private final Long2IntOpenHashMap sources = new Long2IntOpenHashMap();
+
+    public ChunkRadiation(IAttachmentHolder holder) {
+        this(asHeightAccessor(holder));
+    }
+
+    public ChunkRadiation(LevelHeightAccessor height) {
+        this.minSection = height.getMinSection();
+        this.sections = new byte[height.getSectionsCount()][];
+        this.nonZeroCounts = new short[sections.length];
+    }
+
+    /**
+     * Returns the radiation level at a position in this chunk.
+     *
+     * @param x The block x-coordinate.
+     * @param y The block y-coordinate.
+     * @param z The block z-coordinate.
+     * @return The radiation level, in {@code [0, 255]}. Positions outside the build height have no radiation.
+     */
+    public int get(int x, int y, int z) {
+        final int index = SectionPos.blockToSectionCoord(y) - minSection;
+        if (index < 0 || index >= sections.length) {
+            return 0;
+        }
+        final byte[] section = sections[index];
+        return section == null ? 0 : section[PackedPosHelpers.sectionIndex(x, y, z)] & 0xFF;
+    }
+
+    /**
+     * Sets the radiation level at a position in this chunk. The caller is responsible for marking the chunk as unsaved.
+     *
+     * @param x     The block x-coordinate.
+     * @param y     The block y-coordinate.
+     * @param z     The block z-coordinate.
+     * @param level The new radiation level, clamped to {@code [0, 255]}.
+     * @return {@code true} if the level changed.
+     */
+    public boolean set(int x, int y, int z, int level) {
+        final int index = SectionPos.blockToSectionCoord(y) - minSection;
+        if (index < 0 || index >= sections.length) {
+            return false;
+        }
+        level = Math.max(0, Math.min(MAX_LEVEL, level));
+        byte[] section = sections[index];
+        if (section == null) {
+            if (level == 0) {
+                return false;
+            }
+            section = sections[index] = RadiationArrayPool.acquire();
+        }
+        final int cell = PackedPosHelpers.sectionIndex(x, y, z);
+        final int previous = section[cell] & 0xFF;
+        if (previous == level) {
+            return false;
+        }
+        section[cell] = (byte) level;
+        if (previous == 0) {
+            nonZeroCounts[index]++;
+        } else if (level == 0 && --nonZeroCounts[index] == 0) {
+            sections[index] = null;
+            RadiationArrayPool.release(section);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the raw array backing a section. This must be treated as read only - use {@link #set(int, int, int, int)} to modify levels.
+     *
+     * @param sectionY The section y-coordinate.
+     * @return The array of unsigned levels for the section, or {@code null} if the section has no radiation.
+     */
+    @Nullable
+    public byte[] getSection(int sectionY) {
+        final int index = sectionY - minSection;
+        return index < 0 || index >= sections.length ? null : sections[index];
+    }
+
+    /**
+     * @param pos A packed position in this chunk.
+     * @return The strength of the radiation source at the position, or zero if there is none.
+     */
+    public int getSource(long pos) {
+        return sources.get(pos);
+    }
+
+    /**
+     * Sets the strength of the radiation source at a position. This only records the source: use
+     * {@link RadiationPropagator#setSource} to also spread its radiation. The caller is responsible for marking the chunk as unsaved.
+     *
+     * @param pos      A packed position in this chunk.
+     * @param strength The strength, in {@code [0, 255]}. Zero removes the source.
+     * @return The previous strength of the source, or zero if there was none.
+     */
+    public int setSource(long pos, int strength) {
+        return strength == 0 ? sources.remove(pos) : sources.put(pos, strength);
+    }
+
+    /**
+     * @return The lowest section y-coordinate covered by this chunk.
+     */
+    public int getMinSection() {
+        return minSection;
+    }
+
+    /**
+     * @return The number of sections covered by this chunk.
+     */
+    public int getSectionsCount() {
+        return sections.length;
+    }
+
+    /**
+     * @return {@code true} if there is no radiation, and no source, anywhere in this chunk.
+     */
+    public boolean isEmpty() {
+        if (!sources.isEmpty()) {
+            return false;
+        }
+        for (byte[] section : sections) {
+            if (section != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Estimates the heap memory used by this chunk's radiation, assuming compressed object pointers.
+     *
+     * @return The approximate size in bytes.
+     */
+    public long getMemoryUsage() {
+        long bytes = 16 + 16 + 4L * sections.length + 16 + 2L * nonZeroCounts.length + 16; // this object, and both arrays
+        bytes += 48 + 24L * sources.size(); // the source map, at its default load factor
+        for (byte[] section : sections) {
+            if (section != null) {
+                bytes += 16 + SECTION_SIZE;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public CompoundTag serializeNBT(HolderLookup.Provider provider) {
+        final ListTag list = new ListTag();
+        for (int i = 0; i < sections.length; i++) {
+            if (sections[i] != null) {
+                final CompoundTag sectionTag = new CompoundTag();
+                sectionTag.putInt("y", i + minSection);
+                sectionTag.putByteArray("levels", sections[i].clone());
+                list.add(sectionTag);
+            }
+        }
+        final CompoundTag tag = new CompoundTag();
+        tag.put("sections", list);
+        if (!sources.isEmpty()) {
+            final long[] positions = new long[sources.size()];
+            final byte[] strengths = new byte[sources.size()];
+            int i = 0;
+            for (Long2IntMap.Entry entry : sources.long2IntEntrySet()) {
+                positions[i] = entry.getLongKey();
+                strengths[i++] = (byte) entry.getIntValue();
+            }
+            tag.putLongArray("sourcePositions", positions);
+            tag.putByteArray("sourceStrengths", strengths);
+        }
+        return tag;
+    }
+
+    @Override
+    public void deserializeNBT(HolderLookup.Provider provider, CompoundTag tag) {
+        final ListTag list = tag.getList("sections", Tag.TAG_COMPOUND);
+        for (int i = 0; i < list.size(); i++) {
+            final CompoundTag sectionTag = list.getCompound(i);
+            final int index = sectionTag.getInt("y") - minSection;
+            final byte[] levels = sectionTag.getByteArray("levels");
+            if (index < 0 || index >= sections.length || levels.length != SECTION_SIZE) {
+                continue; // The world height has changed, or the data is corrupt, so discard this section
+            }
+            short count = 0;
+            for (byte level : levels) {
+                if (level != 0) {
+                    count++;
+                }
+            }
+            if (count > 0) {
+                final byte[] section = RadiationArrayPool.acquire();
+                System.arraycopy(levels, 0, section, 0, SECTION_SIZE);
+                sections[index] = section;
+                nonZeroCounts[index] = count;
+            }
+        }
+        final long[] positions = tag.getLongArray("sourcePositions");
+        final byte[] strengths = tag.getByteArray("sourceStrengths");
+        for (int i = 0; i < Math.min(positions.length, strengths.length); i++) {
+            if (strengths[i] != 0) {
+                sources.put(positions[i], strengths[i] & 0xFF);
+            }
+        }
+    }
+
+    private static LevelHeightAccessor asHeightAccessor(IAttachmentHolder holder) {
+        if (holder instanceof LevelHeightAccessor height) {
+            return height;
+        }
+        throw new IllegalStateException("Chunk radiation can only be attached to chunks, not " + holder);
+    }
+}
@@ -0,0 +1,50 @@
+package dev.cassis2310.falloutmc.common.radiation;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * A bounded pool of cleared radiation section arrays. Radiation around transient sources (such as a barrel which is picked up again)
+ * appears and decays away repeatedly, so sections which return to zero hand their array back here rather than leaving it to the garbage
+ * collector. The pool is shared between threads, as propagation may run in parallel.
+ */
+public class RadiationArrayPool {
+    private static final int MAX_POOLED = 1024;
+    private static final ArrayDeque<byte[]> POOL = new ArrayDeque<>();
+
+    /**
+     * @return A zeroed array of {@link ChunkRadiation#SECTION_SIZE} values, either from the pool or newly allocated.
+     */
+    public static byte[] acquire() {
+        synchronized (POOL) {
+            final byte[] array = POOL.pollFirst();
+            if (array != null) {
+                return array;
+            }
+        }
+        return new byte[ChunkRadiation.SECTION_SIZE];
+    }
+
+    /**
+     * Clears an array and returns it to the pool. The caller must not hold on to any reference to it afterwards.
+     *
+     * @param array The array to release.
+     */
+    public static void release(byte[] array) {
+        Arrays.fill(array, (byte) 0);
+        synchronized (POOL) {
+            if (POOL.size() < MAX_POOLED) {
+                POOL.addFirst(array);
+            }
+        }
+    }
+
+    /**
+     * @return The number of arrays currently waiting in the pool.
+     */
+    public static int size() {
+        synchronized (POOL) {
+            return POOL.size();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package dev.cassis2310.falloutmc.common.radiation;
+
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.neoforged.neoforge.common.util.INBTSerializable;
+
+/**
+ * The radiation dose absorbed by a living entity, attached as {@link dev.cassis2310.falloutmc.common.FalloutMcAttachmentTypes#RADIATION_EXPOSURE}
+ * and updated by the {@link RadiationExposureSystem}.
+ * <p>
+ * Only the dose is saved. The last sample is a cache, which lets the exposure system skip sampling the field for entities which have
+ * not moved, and is taken again after loading.
+ */
+public class RadiationExposure implements INBTSerializable<CompoundTag> {
+    private float dose;
+
+    long lastSamplePos = Long.MAX_VALUE;
+    long lastSampleVersion = -1;
+    int lastSampleLevel;
+
+    /**
+     * @return The absorbed dose.
+     */
+    public float getDose() {
+        return dose;
+    }
+
+    /**
+     * @param dose The new absorbed dose, which cannot be negative.
+     */
+    public void setDose(float dose) {
+        this.dose = Math.max(0, dose);
+    }
+
+    /**
+     * @return The radiation level at the entity, as of the last time it was sampled.
+     */
+    public int getLastSampleLevel() {
+        return lastSampleLevel;
+    }
+
+    @Override
+    public CompoundTag serializeNBT(HolderLookup.Provider provider) {
+        final CompoundTag tag = new CompoundTag();
+        tag.putFloat("dose", dose);
+        return tag;
+    }
+
+    @Override
+    public void deserializeNBT(HolderLookup.Provider provider, CompoundTag tag) {
+        setDose(tag.getFloat("dose"));
+    }
+}
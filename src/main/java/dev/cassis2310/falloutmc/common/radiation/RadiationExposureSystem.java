@@ -0,0 +1,223 @@
+package dev.cassis2310.falloutmc.common.radiation;
+
+import dev.cassis2310.falloutmc.Config;
+import dev.cassis2310.falloutmc.common.FalloutMcAttachmentTypes;
+import dev.cassis2310.falloutmc.common.FalloutMcDamageTypes;
+import dev.cassis2310.falloutmc.util.entities.EntityHelpers;
+import dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers;
+import it.unimi.dsi.fastutil.floats.FloatArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.damagesource.DamageSource;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.entity.player.Player;
+import net.minecraft.world.level.LevelAccessor;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Updates the {@link RadiationExposure} of every living entity in a level from the {@link RadiationField}.
+ * <p>
+ * Each entity is only updated once every {@link Config#radiationExposureInterval} ticks, and entities are spread across the interval by
+ * their id, so each tick handles a roughly equal share. Living entities are kept in one bucket per tick of the interval, as they join and
+ * leave the level, so each tick only visits its own bucket, rather than every entity in the level. Of those:
+ * <ul>
+ *     <li>Entities which have not moved since their last sample, while the field has not changed, reuse that sample without touching the
+ *     field at all.</li>
+ *     <li>The rest are grouped by the chunk section they are in, and each section's chunk and radiation array are looked up once for the
+ *     whole group. Sections without radiation need no further lookups.</li>
+ *     <li>Damage is collected while doses are updated, and dealt afterwards in one batch with a single damage source.</li>
+ * </ul>
+ * Entities which have never been exposed to radiation are not given an exposure attachment until they are.
+ */
+public class RadiationExposureSystem {
+    private static final Map<LevelAccessor, RadiationExposureSystem> SYSTEMS = new IdentityHashMap<>();
+
+    /**
+     * Returns the exposure system for a level, creating it if necessary.
+     *
+     * @param level The level.
+     * @return The exposure system for that level.
+     */
+    public static RadiationExposureSystem get(ServerLevel level) {
+        return SYSTEMS.computeIfAbsent(level, key -> new RadiationExposureSystem(level));
+    }
+
+    /**
+     * @param level The level.
+     * @return The exposure system for the level, or {@code null} if it has not ticked yet.
+     */
+    @Nullable
+    public static RadiationExposureSystem getIfPresent(LevelAccessor level) {
+        return SYSTEMS.get(level);
+    }
+
+    /**
+     * Discards the exposure system for a level, when the level is unloaded.
+     *
+     * @param level The level.
+     */
+    public static void remove(LevelAccessor level) {
+        SYSTEMS.remove(level);
+    }
+
+    private final ServerLevel level;
+    private final List<ReferenceOpenHashSet<LivingEntity>> buckets = new ArrayList<>();
+
+    // Scratch collections, kept between ticks to avoid reallocating them
+    private final Long2ObjectOpenHashMap<List<LivingEntity>> entitiesBySection = new Long2ObjectOpenHashMap<>();
+    private final List<List<LivingEntity>> spareLists = new ArrayList<>();
+    private final List<LivingEntity> damaged = new ArrayList<>();
+    private final FloatArrayList damageAmounts = new FloatArrayList();
+
+    private RadiationExposureSystem(ServerLevel level) {
+        this.level = level;
+        createBuckets(Config.radiationExposureInterval);
+        for (Entity entity : level.getAllEntities()) {
+            onEntityJoin(entity);
+        }
+    }
+
+    /**
+     * Starts updating an entity, when it joins the level.
+     *
+     * @param entity The entity.
+     */
+    public void onEntityJoin(Entity entity) {
+        if (entity instanceof LivingEntity living) {
+            getBucket(living).add(living);
+        }
+    }
+
+    /**
+     * Stops updating an entity, when it leaves the level.
+     *
+     * @param entity The entity.
+     */
+    public void onEntityLeave(Entity entity) {
+        if (entity instanceof LivingEntity living) {
+            getBucket(living).remove(living);
+        }
+    }
+
+    /**
+     * Updates the share of entities due this tick. Called once per level tick.
+     */
+    public void tick() {
+        final int interval = Config.radiationExposureInterval;
+        if (interval != buckets.size()) {
+            createBuckets(interval);
+        }
+        final int phase = (int) (level.getGameTime() % interval);
+        final RadiationPropagator propagator = RadiationPropagator.getIfPresent(level);
+        final long version = propagator == null ? 0 : propagator.getVersion();
+
+        for (Iterator<LivingEntity> it = buckets.get(phase).iterator(); it.hasNext(); ) {
+            final LivingEntity living = it.next();
+            if (living.isRemoved()) {
+                it.remove(); // Should have been removed when it left the level, but an entity left here would never be freed
+                continue;
+            }
+            if (!living.isAlive() || isImmune(living)) {
+                continue;
+            }
+            final RadiationExposure exposure = getExposure(living);
+            if (exposure != null && !EntityHelpers.hasMoved(living) && exposure.lastSamplePos == living.blockPosition().asLong() && exposure.lastSampleVersion == version) {
+                expose(living, exposure, exposure.lastSampleLevel, interval);
+                continue;
+            }
+            entitiesBySection.computeIfAbsent(SectionPos.asLong(living.blockPosition()), key -> takeList()).add(living);
+        }
+
+        for (Long2ObjectMap.Entry<List<LivingEntity>> entry : entitiesBySection.long2ObjectEntrySet()) {
+            sampleSection(entry.getLongKey(), entry.getValue(), version, interval);
+            entry.getValue().clear();
+            spareLists.add(entry.getValue());
+        }
+        entitiesBySection.clear();
+
+        if (!damaged.isEmpty()) {
+            final DamageSource source = level.damageSources().source(FalloutMcDamageTypes.RADIATION);
+            for (int i = 0; i < damaged.size(); i++) {
+                damaged.get(i).hurt(source, damageAmounts.getFloat(i));
+            }
+            damaged.clear();
+            damageAmounts.clear();
+        }
+    }
+
+    private void sampleSection(long sectionPos, List<LivingEntity> entities, long version, int interval) {
+        final ChunkRadiation radiation = RadiationField.getIfPresent(level, SectionPos.x(sectionPos), SectionPos.z(sectionPos));
+        final byte[] section = radiation == null ? null : radiation.getSection(SectionPos.y(sectionPos));
+        for (LivingEntity entity : entities) {
+            final long pos = entity.blockPosition().asLong();
+            final int sample = section == null ? 0 : section[PackedPosHelpers.sectionIndex(pos)] & 0xFF;
+            RadiationExposure exposure = getExposure(entity);
+            if (exposure == null) {
+                if (sample == 0) {
+                    continue;
+                }
+                exposure = entity.getData(FalloutMcAttachmentTypes.RADIATION_EXPOSURE);
+            }
+            exposure.lastSamplePos = pos;
+            exposure.lastSampleVersion = version;
+            exposure.lastSampleLevel = sample;
+            expose(entity, exposure, sample, interval);
+        }
+    }
+
+    private void expose(LivingEntity entity, RadiationExposure exposure, int sample, int ticks) {
+        if (sample > 0) {
+            exposure.setDose(exposure.getDose() + sample * Config.radiationDoseRate * ticks);
+        } else if (exposure.getDose() > 0) {
+            exposure.setDose(exposure.getDose() - Config.radiationDoseRecovery * ticks);
+        }
+        if (exposure.getDose() > Config.radiationDamageThreshold && Config.radiationDamage > 0) {
+            damaged.add(entity);
+            damageAmounts.add(Config.radiationDamage);
+        }
+    }
+
+    /**
+     * Spreads every entity across a new set of buckets, one per tick of the interval.
+     */
+    private void createBuckets(int interval) {
+        final List<LivingEntity> entities = new ArrayList<>();
+        for (ReferenceOpenHashSet<LivingEntity> bucket : buckets) {
+            entities.addAll(bucket);
+        }
+        buckets.clear();
+        for (int i = 0; i < interval; i++) {
+            buckets.add(new ReferenceOpenHashSet<>());
+        }
+        for (LivingEntity entity : entities) {
+            getBucket(entity).add(entity);
+        }
+    }
+
+    private ReferenceOpenHashSet<LivingEntity> getBucket(LivingEntity entity) {
+        return buckets.get(Math.floorMod(entity.getId(), buckets.size()));
+    }
+
+    private List<LivingEntity> takeList() {
+        return spareLists.isEmpty() ? new ArrayList<>() : spareLists.remove(spareLists.size() - 1);
+    }
+
+    @Nullable
+    private static RadiationExposure getExposure(LivingEntity entity) {
+        return entity.hasData(FalloutMcAttachmentTypes.RADIATION_EXPOSURE) ? entity.getData(FalloutMcAttachmentTypes.RADIATION_EXPOSURE) : null;
+    }
+
+    private static boolean isImmune(LivingEntity entity) {
+        return entity instanceof Player player && (player.isCreative() || player.isSpectator());
+    }
+}
@@ -0,0 +1,111 @@
+package dev.cassis2310.falloutmc.common.radiation;
+
+import dev.cassis2310.falloutmc.common.FalloutMcAttachmentTypes;
+import dev.cassis2310.falloutmc.common.FalloutMcTags;
+import dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads and writes radiation levels in a level, backed by the {@link ChunkRadiation} attached to each chunk.
+ * <p>
+ * Reads never allocate: they do not load chunks, and do not create the attachment for chunks which have never had any radiation.
+ * Both unloaded chunks and chunks without the attachment read as zero.
+ */
+public class RadiationField {
+    /**
+     * Returns how much radiation is absorbed when it passes into a block, in addition to the loss of one level per block travelled.
+     *
+     * @param state The block state.
+     * @return The additional attenuation, which is at least zero.
+     */
+    public static int getAttenuation(BlockState state) {
+        if (state.isAir()) {
+            return 0;
+        }
+        if (state.is(FalloutMcTags.Blocks.RADIATION_SHIELDING)) {
+            return 63;
+        }
+        return state.canOcclude() ? 7 : 1;
+    }
+
+    /**
+     * @param level The level.
+     * @param pos   The position.
+     * @return The radiation level at {@code pos}, in {@code [0, 255]}.
+     */
+    public static int getRadiation(Level level, BlockPos pos) {
+        return getRadiation(level, pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    /**
+     * @param level  The level.
+     * @param packed The packed position, see {@link PackedPosHelpers}.
+     * @return The radiation level at the position, in {@code [0, 255]}.
+     */
+    public static int getRadiation(Level level, long packed) {
+        return getRadiation(level, PackedPosHelpers.getX(packed), PackedPosHelpers.getY(packed), PackedPosHelpers.getZ(packed));
+    }
+
+    /**
+     * @param level The level.
+     * @param x     The block x-coordinate.
+     * @param y     The block y-coordinate.
+     * @param z     The block z-coordinate.
+     * @return The radiation level at the position, in {@code [0, 255]}.
+     */
+    public static int getRadiation(Level level, int x, int y, int z) {
+        final ChunkRadiation radiation = getIfPresent(level, SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(z));
+        return radiation == null ? 0 : radiation.get(x, y, z);
+    }
+
+    /**
+     * Sets the radiation level at a position. This writes the stored value directly, and does not propagate radiation to the surroundings.
+     *
+     * @param level     The level.
+     * @param pos       The position.
+     * @param radiation The new radiation level, clamped to {@code [0, 255]}.
+     * @return {@code true} if the level changed. Positions in unloaded chunks are never changed.
+     */
+    public static boolean setRadiation(Level level, BlockPos pos, int radiation) {
+        final LevelChunk chunk = level.getChunkSource().getChunkNow(SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ()));
+        if (chunk == null || (radiation <= 0 && !chunk.hasData(FalloutMcAttachmentTypes.CHUNK_RADIATION))) {
+            return false;
+        }
+        if (chunk.getData(FalloutMcAttachmentTypes.CHUNK_RADIATION).set(pos.getX(), pos.getY(), pos.getZ(), radiation)) {
+            chunk.setUnsaved(true);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param level  The level.
+     * @param chunkX The chunk x-coordinate.
+     * @param chunkZ The chunk z-coordinate.
+     * @return The radiation attached to the chunk, or {@code null} if the chunk is not loaded, or has never had any radiation.
+     */
+    @Nullable
+    public static ChunkRadiation getIfPresent(Level level, int chunkX, int chunkZ) {
+        final LevelChunk chunk = level.getChunkSource().getChunkNow(chunkX, chunkZ);
+        return chunk != null && chunk.hasData(FalloutMcAttachmentTypes.CHUNK_RADIATION) ? chunk.getData(FalloutMcAttachmentTypes.CHUNK_RADIATION) : null;
+    }
+
+    /**
+     * Returns the radiation attached to a loaded chunk, creating it if necessary.
+     *
+     * @param level  The level.
+     * @param chunkX The chunk x-coordinate.
+     * @param chunkZ The chunk z-coordinate.
+     * @return The radiation attached to the chunk, or {@code null} if the chunk is not loaded.
+     */
+    @Nullable
+    public static ChunkRadiation getOrCreate(Level level, int chunkX, int chunkZ) {
+        final LevelChunk chunk = level.getChunkSource().getChunkNow(chunkX, chunkZ);
+        return chunk != null ? chunk.getData(FalloutMcAttachmentTypes.CHUNK_RADIATION) : null;
+    }
+}
@@ -0,0 +1,531 @@
+package dev.cassis2310.falloutmc.common.radiation;
+
+import dev.cassis2310.falloutmc.Config;
+import dev.cassis2310.falloutmc.common.FalloutMcAttachmentTypes;
+import dev.cassis2310.falloutmc.util.directions.DirectionHelpers;
+import dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Spreads radiation from sources through a level, and keeps the {@link RadiationField} up to date incrementally as sources and blocks
+ * change, in the same way the vanilla light engine propagates light.
+ * <p>
+ * The radiation at a position is the strongest of all sources, less the cost of the path from that source: one level per block travelled,
+ * plus the {@linkplain RadiationField#getAttenuation(BlockState) attenuation} of each block entered. Changes are processed with two queues
+ * of packed positions:
+ * <ul>
+ *     <li>The <strong>decrease</strong> queue removes radiation which may have come from a position which got weaker, clearing each
+ *     dimmer neighbour in turn, and queues any brighter neighbours it meets to fill the cleared area back in.</li>
+ *     <li>The <strong>increase</strong> queue spreads radiation outwards, and stops wherever a neighbour is already at least as bright.</li>
+ * </ul>
+ * Only the positions whose radiation actually depends on a change are visited, so adding or removing a source costs time proportional to
+ * the area it affects, and changes far from any radiation cost a single lookup.
+ * <p>
+ * Sources are stored in the {@link ChunkRadiation} of the chunk they are in, and saved with it. After a restart, the propagated levels and
+ * the sources they came from are both loaded with the chunk, so a later change next to a former source fills back in from it, rather than
+ * erasing its radiation.
+ * <p>
+ * Changes are not applied immediately. They are recorded against the chunk section they happen in, and the dirty sections are worked through
+ * in order during the level tick, up to {@link Config#radiationUpdateBudget} steps per tick. When more than
+ * {@link Config#radiationParallelThreshold} sections are waiting (for instance, after a large explosion), and
+ * {@link Config#radiationParallelUpdates} is enabled, they are instead grouped into regions far enough apart that their updates cannot
+ * touch the same blocks, and the regions are processed in parallel.
+ */
+public class RadiationPropagator {
+    private static final Map<LevelAccessor, RadiationPropagator> PROPAGATORS = new IdentityHashMap<>();
+
+    /**
+     * Regions of {@code 512 x 512} blocks. Radiation travels at most {@link ChunkRadiation#MAX_LEVEL} blocks, so updates which start in two
+     * regions at least one region apart can never reach the same block.
+     */
+    private static final int REGION_SHIFT = 9;
+
+    /**
+     * How far, in chunks, an update which starts inside a region might reach (or read) outside of it.
+     */
+    private static final int REGION_MARGIN_CHUNKS = (ChunkRadiation.MAX_LEVEL + 1 + 15) >> 4;
+
+    /**
+     * Returns the propagator for a level, creating it if necessary.
+     *
+     * @param level The level.
+     * @return The propagator for that level.
+     */
+    public static RadiationPropagator get(ServerLevel level) {
+        return PROPAGATORS.computeIfAbsent(level, key -> new RadiationPropagator(level));
+    }
+
+    /**
+     * @param level The level.
+     * @return The propagator for the level, or {@code null} if no source has been set in it, and no chunk with radiation has been loaded.
+     */
+    @Nullable
+    public static RadiationPropagator getIfPresent(LevelAccessor level) {
+        return PROPAGATORS.get(level);
+    }
+
+    /**
+     * Discards the propagator for a level, when the level is unloaded.
+     *
+     * @param level The level.
+     */
+    public static void remove(LevelAccessor level) {
+        PROPAGATORS.remove(level);
+    }
+
+    private final ServerLevel level;
+    private final Long2ObjectLinkedOpenHashMap<LongArrayList> pendingBySection = new Long2ObjectLinkedOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<long[]> changedCells = new Long2ObjectOpenHashMap<>();
+    private final Worker worker;
+    private long version;
+
+    private RadiationPropagator(ServerLevel level) {
+        this.level = level;
+        this.worker = new Worker(level.getChunkSource()::getChunkNow);
+    }
+
+    /**
+     * Adds, changes or removes a radiation source. The field around it is updated over the following ticks. The source is saved with its
+     * chunk, so it does not need to be set again when the chunk is loaded.
+     *
+     * @param pos      The position of the source.
+     * @param strength The radiation level at the source, in {@code [0, 255]}. Zero removes the source.
+     * @return {@code false} if the position is in a chunk which is not loaded, so the source could not be changed.
+     */
+    public boolean setSource(BlockPos pos, int strength) {
+        final LevelChunk chunk = level.getChunkSource().getChunkNow(SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ()));
+        strength = Math.max(0, Math.min(ChunkRadiation.MAX_LEVEL, strength));
+        if (chunk == null) {
+            return false;
+        }
+        if (strength == 0 && !chunk.hasData(FalloutMcAttachmentTypes.CHUNK_RADIATION)) {
+            return true;
+        }
+        final long packed = pos.asLong();
+        if (chunk.getData(FalloutMcAttachmentTypes.CHUNK_RADIATION).setSource(packed, strength) != strength) {
+            chunk.setUnsaved(true);
+            schedule(packed);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a radiation source, if there is one at the position.
+     *
+     * @param pos The position of the source.
+     */
+    public void removeSource(BlockPos pos) {
+        setSource(pos, 0);
+    }
+
+    /**
+     * @param pos The position.
+     * @return The strength of the source at the position, or zero if there is none, or the chunk is not loaded.
+     */
+    public int getSource(BlockPos pos) {
+        final ChunkRadiation radiation = RadiationField.getIfPresent(level, SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ()));
+        return radiation == null ? 0 : radiation.getSource(pos.asLong());
+    }
+
+    /**
+     * Called when the block at a position changes, as this may change how much radiation passes through it. Changes in areas without
+     * any radiation are ignored.
+     *
+     * @param pos The position of the block.
+     */
+    public void onBlockChanged(BlockPos pos) {
+        final long packed = pos.asLong();
+        if (RadiationField.getRadiation(level, packed) > 0) {
+            schedule(packed);
+            return;
+        }
+        for (int i = 0; i < DirectionHelpers.DIRECTIONS.length; i++) {
+            if (RadiationField.getRadiation(level, PackedPosHelpers.relative(packed, i)) > 0) {
+                schedule(packed);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if there are changes which have not yet been fully propagated.
+     */
+    public boolean hasPendingWork() {
+        return !pendingBySection.isEmpty() || worker.hasQueuedWork();
+    }
+
+    /**
+     * Returns a counter which increases whenever the propagator changes any radiation levels. Systems which sample the field
+     * can compare it against the value from their last sample, to tell whether they need to sample again.
+     *
+     * @return The current version of the field.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Passes every chunk section whose radiation has changed since the last call to the consumer, along with which cells changed, and
+     * forgets them.
+     *
+     * @param consumer A consumer of changed sections.
+     */
+    public void drainChanges(ChangeConsumer consumer) {
+        for (Long2ObjectMap.Entry<long[]> entry : changedCells.long2ObjectEntrySet()) {
+            consumer.accept(entry.getLongKey(), entry.getValue());
+        }
+        changedCells.clear();
+    }
+
+    /**
+     * Processes pending changes. Called once per level tick.
+     */
+    public void tick() {
+        if (!hasPendingWork()) {
+            return;
+        }
+        if (Config.radiationParallelUpdates && pendingBySection.size() >= Config.radiationParallelThreshold) {
+            tickParallel();
+        } else {
+            tickSequential(Config.radiationUpdateBudget);
+        }
+    }
+
+    private void tickSequential(int budget) {
+        worker.invalidate();
+        // Finish propagating anything left over from the last tick before starting on any new sections
+        budget -= worker.run(budget);
+        while (budget > 0 && !pendingBySection.isEmpty()) {
+            final LongArrayList checks = pendingBySection.removeFirst();
+            for (int i = 0; i < checks.size(); i++) {
+                worker.check(checks.getLong(i));
+            }
+            budget -= worker.run(budget);
+        }
+        worker.drainChangedSections(this);
+    }
+
+    private void tickParallel() {
+        worker.invalidate();
+        // Work left over from previous ticks is not confined to any one region, so it must be completed first
+        worker.run(Integer.MAX_VALUE);
+        worker.drainChangedSections(this);
+
+        final Long2ObjectOpenHashMap<LongArrayList> checksByRegion = new Long2ObjectOpenHashMap<>();
+        for (LongArrayList checks : pendingBySection.values()) {
+            for (int i = 0; i < checks.size(); i++) {
+                final long pos = checks.getLong(i);
+                final long region = ChunkPos.asLong(PackedPosHelpers.getX(pos) >> REGION_SHIFT, PackedPosHelpers.getZ(pos) >> REGION_SHIFT);
+                checksByRegion.computeIfAbsent(region, key -> new LongArrayList()).add(pos);
+            }
+        }
+        pendingBySection.clear();
+
+        // Regions are processed in four phases, by the parity of their coordinates, so that all regions processed at the same time have
+        // at least one full region between them. Chunks can only be looked up on the main thread, so each task is given a snapshot of the
+        // loaded chunks it could possibly reach before it starts.
+        for (int phase = 0; phase < 4; phase++) {
+            final List<RegionTask> tasks = new ArrayList<>();
+            for (Long2ObjectMap.Entry<LongArrayList> entry : checksByRegion.long2ObjectEntrySet()) {
+                final int regionX = ChunkPos.getX(entry.getLongKey()), regionZ = ChunkPos.getZ(entry.getLongKey());
+                if (((regionX & 1) | ((regionZ & 1) << 1)) == phase) {
+                    tasks.add(new RegionTask(entry.getValue(), snapshotChunks(regionX, regionZ)));
+                }
+            }
+            if (tasks.isEmpty()) {
+                continue;
+            }
+            tasks.parallelStream().forEach(RegionTask::run);
+            for (RegionTask task : tasks) {
+                task.worker.drainChangedSections(this);
+            }
+        }
+    }
+
+    private Long2ObjectOpenHashMap<LevelChunk> snapshotChunks(int regionX, int regionZ) {
+        final int regionChunks = 1 << (REGION_SHIFT - 4);
+        final int minX = (regionX << (REGION_SHIFT - 4)) - REGION_MARGIN_CHUNKS, maxX = minX + regionChunks + 2 * REGION_MARGIN_CHUNKS;
+        final int minZ = (regionZ << (REGION_SHIFT - 4)) - REGION_MARGIN_CHUNKS, maxZ = minZ + regionChunks + 2 * REGION_MARGIN_CHUNKS;
+        final Long2ObjectOpenHashMap<LevelChunk> chunks = new Long2ObjectOpenHashMap<>();
+        for (int x = minX; x < maxX; x++) {
+            for (int z = minZ; z < maxZ; z++) {
+                final LevelChunk chunk = level.getChunkSource().getChunkNow(x, z);
+                if (chunk != null) {
+                    chunks.put(ChunkPos.asLong(x, z), chunk);
+                }
+            }
+        }
+        return chunks;
+    }
+
+    private void schedule(long pos) {
+        final long section = SectionPos.blockToSection(pos);
+        LongArrayList checks = pendingBySection.get(section);
+        if (checks == null) {
+            checks = new LongArrayList();
+            pendingBySection.put(section, checks);
+        }
+        checks.add(pos);
+    }
+
+    /**
+     * Receives the cells of a section which changed.
+     */
+    @FunctionalInterface
+    public interface ChangeConsumer {
+        /**
+         * @param sectionPos   The packed section position, see {@link SectionPos#asLong()}.
+         * @param changedCells A bit set of the changed cells, indexed as in {@link PackedPosHelpers#sectionIndex(int, int, int)}. Bit
+         *                     {@code i} is set in {@code changedCells[i >> 6] & (1L << i)}.
+         */
+        void accept(long sectionPos, long[] changedCells);
+    }
+
+    /**
+     * Looks up loaded chunks. Workers never load chunks, and positions in chunks which are not loaded have no radiation.
+     */
+    @FunctionalInterface
+    interface ChunkLookup {
+        @Nullable
+        LevelChunk getChunk(int chunkX, int chunkZ);
+    }
+
+    private final class RegionTask {
+        final LongArrayList checks;
+        final Worker worker;
+
+        RegionTask(LongArrayList checks, Long2ObjectOpenHashMap<LevelChunk> chunks) {
+            this.checks = checks;
+            this.worker = new Worker((x, z) -> chunks.get(ChunkPos.asLong(x, z)));
+        }
+
+        void run() {
+            for (int i = 0; i < checks.size(); i++) {
+                worker.check(checks.getLong(i));
+            }
+            worker.run(Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * The increase and decrease queues, and a cache of the last chunk and section used. Only reads sources, which are not changed while
+     * workers run, so several workers can run at once as long as they touch disjoint sets of chunks.
+     */
+    static final class Worker {
+        private final ChunkLookup chunks;
+
+        private final LongArrayFIFOQueue increasePositions = new LongArrayFIFOQueue();
+        private final IntArrayFIFOQueue increaseLevels = new IntArrayFIFOQueue();
+        private final LongArrayFIFOQueue decreasePositions = new LongArrayFIFOQueue();
+        private final IntArrayFIFOQueue decreaseLevels = new IntArrayFIFOQueue();
+        private final Long2ObjectOpenHashMap<long[]> changedCells = new Long2ObjectOpenHashMap<>();
+
+        private long cachedChunkPos = Long.MAX_VALUE;
+        @Nullable private LevelChunk cachedChunk;
+
+        Worker(ChunkLookup chunks) {
+            this.chunks = chunks;
+        }
+
+        boolean hasQueuedWork() {
+            return !increasePositions.isEmpty() || !decreasePositions.isEmpty();
+        }
+
+        /**
+         * Queues the updates needed after the source or block at a position changed.
+         */
+        void check(long pos) {
+            final int current = getLevel(pos);
+            final int source = getSource(pos);
+            if (current > source) {
+                // This position may have got darker, so remove everything which could depend on it, then fill back in from its surroundings
+                setLevel(pos, 0);
+                enqueueDecrease(pos, current);
+            }
+            if (source > getLevel(pos)) {
+                setLevel(pos, source);
+                enqueueIncrease(pos, source);
+            }
+            // The block may now let through more radiation than before, so let the neighbours try to spread into it again
+            for (int i = 0; i < DirectionHelpers.DIRECTIONS.length; i++) {
+                final long neighbour = PackedPosHelpers.relative(pos, i);
+                final int neighbourLevel = getLevel(neighbour);
+                if (neighbourLevel > 0) {
+                    enqueueIncrease(neighbour, neighbourLevel);
+                }
+            }
+        }
+
+        /**
+         * Processes queued updates, all decreases before any increases.
+         *
+         * @param budget The maximum number of positions to process.
+         * @return The number of positions processed.
+         */
+        int run(int budget) {
+            int steps = 0;
+            while (steps < budget && !decreasePositions.isEmpty()) {
+                propagateDecrease(decreasePositions.dequeueLong(), decreaseLevels.dequeueInt());
+                steps++;
+            }
+            while (steps < budget && decreasePositions.isEmpty() && !increasePositions.isEmpty()) {
+                propagateIncrease(increasePositions.dequeueLong(), increaseLevels.dequeueInt());
+                steps++;
+            }
+            return steps;
+        }
+
+        /**
+         * Forgets the cached chunk, which may have been unloaded since it was last used.
+         */
+        void invalidate() {
+            cachedChunkPos = Long.MAX_VALUE;
+            cachedChunk = null;
+        }
+
+        void drainChangedSections(RadiationPropagator into) {
+            if (changedCells.isEmpty()) {
+                return;
+            }
+            for (Long2ObjectMap.Entry<long[]> entry : changedCells.long2ObjectEntrySet()) {
+                final long[] mask = into.changedCells.get(entry.getLongKey());
+                if (mask == null) {
+                    into.changedCells.put(entry.getLongKey(), entry.getValue());
+                } else {
+                    for (int i = 0; i < mask.length; i++) {
+                        mask[i] |= entry.getValue()[i];
+                    }
+                }
+            }
+            into.version++;
+            changedCells.clear();
+        }
+
+        private void propagateDecrease(long pos, int previousLevel) {
+            for (int i = 0; i < DirectionHelpers.DIRECTIONS.length; i++) {
+                final long neighbour = PackedPosHelpers.relative(pos, i);
+                final int neighbourLevel = getLevel(neighbour);
+                if (neighbourLevel == 0) {
+                    continue;
+                }
+                if (neighbourLevel < previousLevel) {
+                    // The neighbour may have been lit through this position
+                    setLevel(neighbour, 0);
+                    enqueueDecrease(neighbour, neighbourLevel);
+                    final int source = getSource(neighbour);
+                    if (source > 0) {
+                        setLevel(neighbour, source);
+                        enqueueIncrease(neighbour, source);
+                    }
+                } else {
+                    // The neighbour is lit from elsewhere, so it can fill back in the area which was cleared
+                    enqueueIncrease(neighbour, neighbourLevel);
+                }
+            }
+        }
+
+        private void propagateIncrease(long pos, int level) {
+            if (getLevel(pos) != level) {
+                return; // Changed since this was queued, and the newer entry will do the work
+            }
+            for (int i = 0; i < DirectionHelpers.DIRECTIONS.length; i++) {
+                final long neighbour = PackedPosHelpers.relative(pos, i);
+                final BlockState state = getBlockState(neighbour);
+                if (state == null) {
+                    continue;
+                }
+                final int neighbourLevel = level - 1 - RadiationField.getAttenuation(state);
+                if (neighbourLevel > getLevel(neighbour)) {
+                    setLevel(neighbour, neighbourLevel);
+                    enqueueIncrease(neighbour, neighbourLevel);
+                }
+            }
+        }
+
+        private void enqueueIncrease(long pos, int level) {
+            increasePositions.enqueue(pos);
+            increaseLevels.enqueue(level);
+        }
+
+        private void enqueueDecrease(long pos, int level) {
+            decreasePositions.enqueue(pos);
+            decreaseLevels.enqueue(level);
+        }
+
+        private int getLevel(long pos) {
+            final LevelChunk chunk = getChunk(pos);
+            if (chunk == null || !chunk.hasData(FalloutMcAttachmentTypes.CHUNK_RADIATION)) {
+                return 0;
+            }
+            return chunk.getData(FalloutMcAttachmentTypes.CHUNK_RADIATION).get(PackedPosHelpers.getX(pos), PackedPosHelpers.getY(pos), PackedPosHelpers.getZ(pos));
+        }
+
+        private int getSource(long pos) {
+            final LevelChunk chunk = getChunk(pos);
+            if (chunk == null || !chunk.hasData(FalloutMcAttachmentTypes.CHUNK_RADIATION)) {
+                return 0;
+            }
+            return chunk.getData(FalloutMcAttachmentTypes.CHUNK_RADIATION).getSource(pos);
+        }
+
+        private void setLevel(long pos, int level) {
+            final LevelChunk chunk = getChunk(pos);
+            if (chunk == null || (level == 0 && !chunk.hasData(FalloutMcAttachmentTypes.CHUNK_RADIATION))) {
+                return;
+            }
+            if (chunk.getData(FalloutMcAttachmentTypes.CHUNK_RADIATION).set(PackedPosHelpers.getX(pos), PackedPosHelpers.getY(pos), PackedPosHelpers.getZ(pos), level)) {
+                chunk.setUnsaved(true);
+                final int cell = PackedPosHelpers.sectionIndex(pos);
+                changedCells.computeIfAbsent(SectionPos.blockToSection(pos), key -> new long[ChunkRadiation.SECTION_SIZE / Long.SIZE])[cell >> 6] |= 1L << cell;
+            }
+        }
+
+        /**
+         * @return The block state at a position, or {@code null} if it is in an unloaded chunk. Positions outside the build height are air.
+         */
+        @Nullable
+        private BlockState getBlockState(long pos) {
+            final LevelChunk chunk = getChunk(pos);
+            if (chunk == null) {
+                return null;
+            }
+            final int y = PackedPosHelpers.getY(pos);
+            final int index = chunk.getSectionIndex(y);
+            if (index < 0 || index >= chunk.getSectionsCount()) {
+                return Blocks.AIR.defaultBlockState();
+            }
+            final LevelChunkSection section = chunk.getSection(index);
+            return section.getBlockState(PackedPosHelpers.getX(pos) & 15, y & 15, PackedPosHelpers.getZ(pos) & 15);
+        }
+
+        @Nullable
+        private LevelChunk getChunk(long pos) {
+            final long chunkPos = PackedPosHelpers.blockToChunk(pos);
+            if (chunkPos != cachedChunkPos) {
+                cachedChunkPos = chunkPos;
+                cachedChunk = chunks.getChunk(ChunkPos.getX(chunkPos), ChunkPos.getZ(chunkPos));
+            }
+            return cachedChunk;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package dev.cassis2310.falloutmc.common.radiation;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.VarInt;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Encodes the radiation levels of a chunk section for sending to clients, either in full or as the changes since the last time it was
+ * sent. Depends only on {@link ByteBuf}, so encoding can be exercised without a running game.
+ * <p>
+ * A section is encoded as a single mode byte. {@link #CLEARED} means the section has no radiation at all, and nothing follows.
+ * {@link #RUNS} is followed by a var int count of runs of consecutive changed cells (in {@linkplain
+ * dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers#sectionIndex(int, int, int) section index} order), and for each run:
+ * <ul>
+ *     <li>A var int count of unchanged cells skipped since the end of the previous run, and the var int length of the run.</li>
+ *     <li>The levels in the run, each as the zig-zag encoded var int difference from the previous level (starting from zero). A zero
+ *     difference is followed by a var int count of further zero differences, so a run of equal levels takes two bytes.</li>
+ * </ul>
+ * Radiation changes smoothly from block to block, so most differences fit in a single byte, and the large areas of equal levels left behind
+ * by removing a source collapse to almost nothing.
+ */
+public class RadiationSectionCodec {
+    public static final byte CLEARED = 0;
+    public static final byte RUNS = 1;
+
+    private static final int MASK_LENGTH = ChunkRadiation.SECTION_SIZE / Long.SIZE;
+    private static final long[] ALL_CELLS = new long[MASK_LENGTH];
+
+    static {
+        Arrays.fill(ALL_CELLS, -1L);
+    }
+
+    /**
+     * Encodes every cell of a section.
+     *
+     * @param buffer The buffer to write to.
+     * @param levels The levels of the section, or {@code null} if it has no radiation.
+     */
+    public static void encodeFull(ByteBuf buffer, @Nullable byte[] levels) {
+        encode(buffer, levels, ALL_CELLS);
+    }
+
+    /**
+     * Encodes only the changed cells of a section.
+     *
+     * @param buffer       The buffer to write to.
+     * @param levels       The current levels of the section, or {@code null} if it has no radiation.
+     * @param changedCells A bit set of the cells to encode, as produced by {@link RadiationPropagator#drainChanges}.
+     */
+    public static void encode(ByteBuf buffer, @Nullable byte[] levels, long[] changedCells) {
+        if (levels == null) {
+            buffer.writeByte(CLEARED);
+            return;
+        }
+        buffer.writeByte(RUNS);
+
+        int runs = 0;
+        for (int cell = nextSetBit(changedCells, 0); cell != -1; cell = nextSetBit(changedCells, nextClearBit(changedCells, cell))) {
+            runs++;
+        }
+        VarInt.write(buffer, runs);
+
+        int end = 0;
+        for (int start = nextSetBit(changedCells, 0); start != -1; start = nextSetBit(changedCells, end)) {
+            final int stop = nextClearBit(changedCells, start);
+            VarInt.write(buffer, start - end);
+            VarInt.write(buffer, stop - start);
+            int previous = 0;
+            for (int cell = start; cell < stop; ) {
+                final int level = levels[cell] & 0xFF;
+                if (level == previous) {
+                    int repeats = 0;
+                    while (cell + 1 + repeats < stop && (levels[cell + 1 + repeats] & 0xFF) == level) {
+                        repeats++;
+                    }
+                    VarInt.write(buffer, 0);
+                    VarInt.write(buffer, repeats);
+                    cell += 1 + repeats;
+                } else {
+                    VarInt.write(buffer, zigZag(level - previous));
+                    previous = level;
+                    cell++;
+                }
+            }
+            end = stop;
+        }
+    }
+
+    /**
+     * Decodes a section, applying it on top of the existing levels.
+     *
+     * @param buffer The buffer to read from.
+     * @param levels The existing levels of the section, which are modified in place, or {@code null} if the section had no radiation.
+     * @return The new levels of the section, which is {@code levels} if it was not {@code null}, or {@code null} if the section now has no
+     * radiation.
+     * @throws IllegalArgumentException if the data is malformed.
+     */
+    @Nullable
+    public static byte[] decode(ByteBuf buffer, @Nullable byte[] levels) {
+        final byte mode = buffer.readByte();
+        if (mode == CLEARED) {
+            return null;
+        }
+        if (mode != RUNS) {
+            throw new IllegalArgumentException("Unknown radiation section encoding: " + mode);
+        }
+        if (levels == null) {
+            levels = new byte[ChunkRadiation.SECTION_SIZE];
+        }
+        final int runs = VarInt.read(buffer);
+        int cell = 0;
+        for (int run = 0; run < runs; run++) {
+            cell += VarInt.read(buffer);
+            final int stop = cell + VarInt.read(buffer);
+            if (cell < 0 || stop > ChunkRadiation.SECTION_SIZE) {
+                throw new IllegalArgumentException("Radiation section run out of bounds: [" + cell + ", " + stop + ")");
+            }
+            int previous = 0;
+            while (cell < stop) {
+                final int token = VarInt.read(buffer);
+                if (token == 0) {
+                    final int repeats = VarInt.read(buffer);
+                    if (cell + 1 + repeats > stop) {
+                        throw new IllegalArgumentException("Radiation section repeat runs past the end of its run");
+                    }
+                    Arrays.fill(levels, cell, cell + 1 + repeats, (byte) previous);
+                    cell += 1 + repeats;
+                } else {
+                    previous += unZigZag(token);
+                    levels[cell++] = (byte) previous;
+                }
+            }
+        }
+        return levels;
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int nextSetBit(long[] bits, int from) {
+        int index = from >> 6;
+        if (index >= bits.length) {
+            return -1;
+        }
+        long word = bits[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == bits.length) {
+                return -1;
+            }
+            word = bits[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    private static int nextClearBit(long[] bits, int from) {
+        int index = from >> 6;
+        if (index >= bits.length) {
+            return from;
+        }
+        long word = ~bits[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == bits.length) {
+                return bits.length << 6;
+            }
+            word = ~bits[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+}
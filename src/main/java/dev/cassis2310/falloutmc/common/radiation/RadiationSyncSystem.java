@@ -0,0 +1,194 @@
+package dev.cassis2310.falloutmc.common.radiation;
+
+import dev.cassis2310.falloutmc.Config;
+import dev.cassis2310.falloutmc.network.RadiationSyncPayload;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2LongOpenHashMap;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.LevelAccessor;
+import net.neoforged.neoforge.network.PacketDistributor;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps clients up to date with the radiation in the cube of sections within {@link Config#radiationSyncDistance} of their player.
+ * <p>
+ * Each tick, the cells changed by the {@link RadiationPropagator} are collected per section and each changed section is encoded once, by
+ * {@link RadiationSectionCodec}, as only its changed cells. Every player then receives {@link RadiationSyncPayload}s holding:
+ * <ul>
+ *     <li>The changes to sections inside their cube, which the client already knows about.</li>
+ *     <li>The full contents of sections which have just entered their cube, because they moved into a new section.</li>
+ * </ul>
+ * The sections are split across as many payloads as needed to keep each under {@link RadiationSyncPayload#MAX_SIZE}, as a player
+ * entering a heavily irradiated area may need thousands of full sections at once. The client discards sections which leave the cube
+ * whenever a payload arrives, so the server does not need to remember which sections each client knows about beyond the section its
+ * player was last in. For that to hold, a player who moves into a new section is always sent a payload, even an empty one, and players
+ * with nothing to receive are only sent nothing if they have not moved.
+ * <p>
+ * Radiation written directly with {@link RadiationField#setRadiation} is not synced until the section is next sent in full.
+ */
+public class RadiationSyncSystem {
+    private static final Map<LevelAccessor, RadiationSyncSystem> SYSTEMS = new IdentityHashMap<>();
+    private static final long NO_SECTION = Long.MAX_VALUE;
+
+    /**
+     * Returns the sync system for a level, creating it if necessary.
+     *
+     * @param level The level.
+     * @return The sync system for that level.
+     */
+    public static RadiationSyncSystem get(ServerLevel level) {
+        return SYSTEMS.computeIfAbsent(level, key -> new RadiationSyncSystem(level));
+    }
+
+    /**
+     * Discards the sync system for a level, when the level is unloaded.
+     *
+     * @param level The level.
+     */
+    public static void remove(LevelAccessor level) {
+        SYSTEMS.remove(level);
+    }
+
+    private final ServerLevel level;
+    private final Reference2LongOpenHashMap<ServerPlayer> lastSections = new Reference2LongOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<long[]> changedCells = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectOpenHashMap<byte[]> encodedChanges = new Long2ObjectOpenHashMap<>();
+    private final ByteBuf scratch = Unpooled.buffer(ChunkRadiation.SECTION_SIZE);
+    private long bytesSent;
+    private long payloadsSent;
+
+    private RadiationSyncSystem(ServerLevel level) {
+        this.level = level;
+        this.lastSections.defaultReturnValue(NO_SECTION);
+    }
+
+    /**
+     * @return The approximate number of bytes sent to all players since this system was created, for measuring bandwidth.
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return The number of payloads sent to all players since this system was created.
+     */
+    public long getPayloadsSent() {
+        return payloadsSent;
+    }
+
+    /**
+     * Sends this tick's changes to players. Called once per level tick, after the propagator has ticked.
+     */
+    public void tick() {
+        final RadiationPropagator propagator = RadiationPropagator.getIfPresent(level);
+        if (propagator != null) {
+            propagator.drainChanges(changedCells::put);
+        }
+        lastSections.keySet().removeIf(player -> player.isRemoved() || player.level() != level);
+
+        final int distance = Config.radiationSyncDistance;
+        for (ServerPlayer player : level.players()) {
+            final long center = SectionPos.asLong(player.blockPosition());
+            final long lastCenter = lastSections.put(player, center);
+            final List<RadiationSyncPayload.Section> sections = new ArrayList<>();
+
+            for (Long2ObjectMap.Entry<long[]> entry : changedCells.long2ObjectEntrySet()) {
+                final long pos = entry.getLongKey();
+                if (isWithin(pos, center, distance) && lastCenter != NO_SECTION && isWithin(pos, lastCenter, distance)) {
+                    sections.add(new RadiationSyncPayload.Section(pos, encodeChanges(pos, entry.getValue())));
+                }
+            }
+            final boolean moved = center != lastCenter;
+            if (moved) {
+                addEnteredSections(sections, center, lastCenter, distance);
+            }
+
+            send(player, center, distance, sections, moved);
+        }
+        changedCells.clear();
+        encodedChanges.clear();
+    }
+
+    private void send(ServerPlayer player, long center, int distance, List<RadiationSyncPayload.Section> sections, boolean moved) {
+        int start = 0;
+        int size = RadiationSyncPayload.HEADER_SIZE;
+        for (int i = 0; i < sections.size(); i++) {
+            final int sectionSize = sections.get(i).size();
+            if (i > start && size + sectionSize > RadiationSyncPayload.MAX_SIZE) {
+                send(player, new RadiationSyncPayload(center, distance, List.copyOf(sections.subList(start, i))));
+                start = i;
+                size = RadiationSyncPayload.HEADER_SIZE;
+            }
+            size += sectionSize;
+        }
+        // A player who moved must hear about their new center even with no sections, or their client will never discard the old ones
+        if (start < sections.size() || (moved && sections.isEmpty())) {
+            send(player, new RadiationSyncPayload(center, distance, start == 0 ? sections : List.copyOf(sections.subList(start, sections.size()))));
+        }
+    }
+
+    private void send(ServerPlayer player, RadiationSyncPayload payload) {
+        PacketDistributor.sendToPlayer(player, payload);
+        bytesSent += payload.size();
+        payloadsSent++;
+    }
+
+    private void addEnteredSections(List<RadiationSyncPayload.Section> sections, long center, long lastCenter, int distance) {
+        final int centerX = SectionPos.x(center), centerY = SectionPos.y(center), centerZ = SectionPos.z(center);
+        for (int x = centerX - distance; x <= centerX + distance; x++) {
+            for (int z = centerZ - distance; z <= centerZ + distance; z++) {
+                final ChunkRadiation radiation = RadiationField.getIfPresent(level, x, z);
+                if (radiation == null) {
+                    continue;
+                }
+                for (int y = centerY - distance; y <= centerY + distance; y++) {
+                    final long pos = SectionPos.asLong(x, y, z);
+                    final byte[] levels = radiation.getSection(y);
+                    // The client has already discarded any section outside its previous cube, so empty sections need not be sent
+                    if (levels != null && (lastCenter == NO_SECTION || !isWithin(pos, lastCenter, distance))) {
+                        sections.add(new RadiationSyncPayload.Section(pos, encodeFull(levels)));
+                    }
+                }
+            }
+        }
+    }
+
+    private byte[] encodeChanges(long pos, long[] cells) {
+        byte[] data = encodedChanges.get(pos);
+        if (data == null) {
+            final ChunkRadiation radiation = RadiationField.getIfPresent(level, SectionPos.x(pos), SectionPos.z(pos));
+            scratch.clear();
+            RadiationSectionCodec.encode(scratch, radiation == null ? null : radiation.getSection(SectionPos.y(pos)), cells);
+            data = copyScratch();
+            encodedChanges.put(pos, data);
+        }
+        return data;
+    }
+
+    private byte[] encodeFull(byte[] levels) {
+        scratch.clear();
+        RadiationSectionCodec.encodeFull(scratch, levels);
+        return copyScratch();
+    }
+
+    private byte[] copyScratch() {
+        final byte[] data = new byte[scratch.readableBytes()];
+        scratch.readBytes(data);
+        return data;
+    }
+
+    private static boolean isWithin(long pos, long center, int distance) {
+        return Math.abs(SectionPos.x(pos) - SectionPos.x(center)) <= distance
+            && Math.abs(SectionPos.y(pos) - SectionPos.y(center)) <= distance
+            && Math.abs(SectionPos.z(pos) - SectionPos.z(center)) <= distance;
+    }
+}
@@ -0,0 +1,280 @@
+package dev.cassis2310.falloutmc.common.spawning;
+
+import dev.cassis2310.falloutmc.Config;
+import it.unimi.dsi.fastutil.ints.Int2LongOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.core.SectionPos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.MobSpawnType;
+import net.minecraft.world.entity.SpawnPlacements;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.GameRules;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.biome.Biome;
+import net.minecraft.world.level.levelgen.Heightmap;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Spawns wasteland creatures around players, keeping them under a density cap without ever scanning for entities:
+ * <ul>
+ *     <li>The {@linkplain #register registered} {@link SpawnEntry}s are compiled once per biome into a weighted pool: an array of entity
+ *     types, and an array of cumulative weights. Picking a creature is then one binary search, rather than resolving tags.</li>
+ *     <li>Creatures of any type the director spawns are counted per chunk, as they join and leave the level, and as they move between
+ *     chunks. The density around a candidate position is read from these counters.</li>
+ *     <li>A fixed budget of {@link Config#spawnAttemptsPerTick} attempts is made per tick, each at a random position around a random
+ *     player.</li>
+ * </ul>
+ * Pools are discarded when tags are reloaded, and compiled again when next needed.
+ */
+public class SpawnDirector {
+    private static final int MIN_DISTANCE = 24;
+    private static final int MAX_DISTANCE = 96;
+
+    private static final Map<LevelAccessor, SpawnDirector> DIRECTORS = new IdentityHashMap<>();
+    private static final List<SpawnEntry> ENTRIES = new CopyOnWriteArrayList<>();
+    private static final Map<Biome, Pool> POOLS = new Reference2ObjectOpenHashMap<>();
+    private static final Set<EntityType<?>> COUNTED_TYPES = new ReferenceOpenHashSet<>();
+    private static boolean countedTypesValid;
+
+    /**
+     * Adds creatures to spawn. Called during mod setup, which may be on several threads at once, before any level is loaded. The pools and
+     * counted types are only used, and cleared, on the server thread, so are not touched here.
+     *
+     * @param entry The creatures, and where they spawn.
+     */
+    public static void register(SpawnEntry entry) {
+        ENTRIES.add(entry);
+    }
+
+    /**
+     * @return {@code true} if any creatures have been registered, and so directors need to run.
+     */
+    public static boolean isEnabled() {
+        return !ENTRIES.isEmpty();
+    }
+
+    /**
+     * Discards every compiled pool, when tags are reloaded. Must only be called on the server thread.
+     */
+    public static void clearPools() {
+        POOLS.clear();
+        countedTypesValid = false;
+    }
+
+    /**
+     * Returns the spawn director for a level, creating it if necessary.
+     *
+     * @param level The level.
+     * @return The spawn director for that level.
+     */
+    public static SpawnDirector get(ServerLevel level) {
+        return DIRECTORS.computeIfAbsent(level, key -> new SpawnDirector(level));
+    }
+
+    /**
+     * @param level The level.
+     * @return The spawn director for the level, or {@code null} if it has not been created.
+     */
+    @Nullable
+    public static SpawnDirector getIfPresent(LevelAccessor level) {
+        return DIRECTORS.get(level);
+    }
+
+    /**
+     * Discards the spawn director for a level, when the level is unloaded.
+     *
+     * @param level The level.
+     */
+    public static void remove(LevelAccessor level) {
+        DIRECTORS.remove(level);
+    }
+
+    private final ServerLevel level;
+    private final Long2IntOpenHashMap densities = new Long2IntOpenHashMap();
+    private final Int2LongOpenHashMap countedChunks = new Int2LongOpenHashMap();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private int spawned;
+    private int attempts;
+
+    private SpawnDirector(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Counts an entity towards the density of its chunk, if it is of a type the director spawns.
+     *
+     * @param entity The entity which joined the level.
+     */
+    public void onEntityJoin(Entity entity) {
+        if (isCounted(entity.getType()) && !countedChunks.containsKey(entity.getId())) {
+            final long chunk = ChunkPos.asLong(entity.blockPosition());
+            countedChunks.put(entity.getId(), chunk);
+            densities.addTo(chunk, 1);
+        }
+    }
+
+    /**
+     * Stops counting an entity, when it leaves the level.
+     *
+     * @param entity The entity which left the level.
+     */
+    public void onEntityLeave(Entity entity) {
+        if (countedChunks.containsKey(entity.getId())) {
+            decrement(countedChunks.remove(entity.getId()));
+        }
+    }
+
+    /**
+     * Moves an entity's count to a new chunk.
+     *
+     * @param entity The entity.
+     * @param pos    The section the entity has moved into.
+     */
+    public void onEntityMoved(Entity entity, SectionPos pos) {
+        if (countedChunks.containsKey(entity.getId())) {
+            final long chunk = ChunkPos.asLong(pos.x(), pos.z());
+            decrement(countedChunks.put(entity.getId(), chunk));
+            densities.addTo(chunk, 1);
+        }
+    }
+
+    /**
+     * @param pos A position.
+     * @return The number of counted creatures in the chunks within {@link Config#spawnDensityRadius} of the position.
+     */
+    public int getDensity(BlockPos pos) {
+        final int radius = Config.spawnDensityRadius;
+        final int chunkX = SectionPos.blockToSectionCoord(pos.getX()), chunkZ = SectionPos.blockToSectionCoord(pos.getZ());
+        int density = 0;
+        for (int dx = -radius; dx <= radius; dx++) {
+            for (int dz = -radius; dz <= radius; dz++) {
+                density += densities.get(ChunkPos.asLong(chunkX + dx, chunkZ + dz));
+            }
+        }
+        return density;
+    }
+
+    /**
+     * @return The number of spawn attempts made, and how many succeeded, for measuring how well the budget is used.
+     */
+    public Stats getStats() {
+        return new Stats(attempts, spawned);
+    }
+
+    /**
+     * Makes this tick's spawn attempts. Called once per level tick.
+     */
+    public void tick() {
+        final List<ServerPlayer> players = level.players();
+        if (players.isEmpty() || !level.getGameRules().getBoolean(GameRules.RULE_DOMOBSPAWNING)) {
+            return;
+        }
+        final RandomSource random = level.getRandom();
+        for (int i = 0; i < Config.spawnAttemptsPerTick; i++) {
+            attempts++;
+            final ServerPlayer player = players.get(random.nextInt(players.size()));
+            if (!player.isSpectator() && trySpawn(player, random)) {
+                spawned++;
+            }
+        }
+    }
+
+    private boolean trySpawn(ServerPlayer player, RandomSource random) {
+        final double angle = random.nextDouble() * Math.PI * 2;
+        final int distance = MIN_DISTANCE + random.nextInt(MAX_DISTANCE - MIN_DISTANCE);
+        final int x = player.getBlockX() + (int) (Math.cos(angle) * distance);
+        final int z = player.getBlockZ() + (int) (Math.sin(angle) * distance);
+        cursor.set(x, 0, z);
+        if (!level.isPositionEntityTicking(cursor) || getDensity(cursor) >= Config.spawnDensityCap) {
+            return false;
+        }
+        cursor.setY(level.getHeight(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, x, z));
+        final Pool pool = getPool(level.getBiome(cursor));
+        if (pool == null) {
+            return false;
+        }
+        final EntityType<?> type = pool.pick(random);
+        if (!SpawnPlacements.isSpawnPositionOk(type, level, cursor)
+            || !SpawnPlacements.checkSpawnRules(type, level, MobSpawnType.NATURAL, cursor, random)
+            || !level.noCollision(type.getSpawnAABB(x + 0.5, cursor.getY(), z + 0.5))) {
+            return false;
+        }
+        // Joining the level counts the new creature
+        return type.spawn(level, cursor.immutable(), MobSpawnType.NATURAL) != null;
+    }
+
+    private void decrement(long chunk) {
+        if (densities.addTo(chunk, -1) <= 1) {
+            densities.remove(chunk);
+        }
+    }
+
+    private static boolean isCounted(EntityType<?> type) {
+        if (!countedTypesValid) {
+            COUNTED_TYPES.clear();
+            for (SpawnEntry entry : ENTRIES) {
+                BuiltInRegistries.ENTITY_TYPE.getTagOrEmpty(entry.entities()).forEach(holder -> COUNTED_TYPES.add(holder.value()));
+            }
+            countedTypesValid = true;
+        }
+        return COUNTED_TYPES.contains(type);
+    }
+
+    @Nullable
+    private static Pool getPool(Holder<Biome> biome) {
+        final Pool pool = POOLS.computeIfAbsent(biome.value(), key -> Pool.compile(biome));
+        return pool.total > 0 ? pool : null;
+    }
+
+    /**
+     * @param attempts The number of spawn attempts made.
+     * @param spawned  The number of attempts which spawned a creature.
+     */
+    public record Stats(int attempts, int spawned) {}
+
+    /**
+     * The creatures which can spawn in one biome, with cumulative weights, so one can be picked with a binary search.
+     */
+    private record Pool(EntityType<?>[] types, int[] cumulativeWeights, int total) {
+        static Pool compile(Holder<Biome> biome) {
+            final List<EntityType<?>> types = new ArrayList<>();
+            final IntArrayList weights = new IntArrayList();
+            int total = 0;
+            for (SpawnEntry entry : ENTRIES) {
+                if (biome.is(entry.biomes())) {
+                    for (Holder<EntityType<?>> type : BuiltInRegistries.ENTITY_TYPE.getTagOrEmpty(entry.entities())) {
+                        total += entry.weight();
+                        types.add(type.value());
+                        weights.add(total);
+                    }
+                }
+            }
+            return new Pool(types.toArray(EntityType<?>[]::new), weights.toIntArray(), total);
+        }
+
+        EntityType<?> pick(RandomSource random) {
+            final int value = random.nextInt(total);
+            // The first entry whose cumulative weight exceeds the value
+            final int index = Arrays.binarySearch(cumulativeWeights, value);
+            return types[index >= 0 ? index + 1 : -index - 1];
+        }
+    }
+}
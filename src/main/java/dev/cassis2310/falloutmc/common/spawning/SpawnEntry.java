@@ -0,0 +1,21 @@
+package dev.cassis2310.falloutmc.common.spawning;
+
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.biome.Biome;
+
+/**
+ * Creatures which the {@link SpawnDirector} may spawn in some biomes.
+ *
+ * @param biomes   The biomes the creatures spawn in.
+ * @param entities The creatures. Each entity type in the tag is equally likely, as with
+ *                 {@link dev.cassis2310.falloutmc.util.entities.EntityHelpers#randomEntity}.
+ * @param weight   The weight of each entity type in the tag, relative to the other entries for the same biome.
+ */
+public record SpawnEntry(TagKey<Biome> biomes, TagKey<EntityType<?>> entities, int weight) {
+    public SpawnEntry {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Spawn weight must be positive: " + weight);
+        }
+    }
+}
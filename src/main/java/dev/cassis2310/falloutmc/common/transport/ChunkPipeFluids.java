@@ -0,0 +1,87 @@
+package dev.cassis2310.falloutmc.common.transport;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.world.level.ChunkPos;
+import net.neoforged.neoforge.common.util.INBTSerializable;
+import net.neoforged.neoforge.fluids.FluidStack;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The fluid held by each fluid pipe in a chunk, attached to the chunk as {@link dev.cassis2310.falloutmc.common.FalloutMcAttachmentTypes#PIPE_FLUIDS},
+ * so fluid in pipes survives the chunk unloading and the server restarting.
+ * <p>
+ * While a pipe is part of a {@link FluidTransportSystem}, its fluid is part of its network's pool, and is only worked out as the pipe's
+ * share of that pool when the chunk is saved. Pipes which are not part of the system (because their chunk is unloading, or was just loaded
+ * and they have not been added back yet) keep their fluid here instead, until they are added back and it is returned to their network.
+ */
+public class ChunkPipeFluids implements INBTSerializable<CompoundTag> {
+    private final Long2ObjectOpenHashMap<FluidStack> stored = new Long2ObjectOpenHashMap<>();
+    @Nullable private FluidTransportSystem system;
+    @Nullable private ChunkPos pos;
+
+    /**
+     * Removes the fluid kept for a pipe which is not part of the system.
+     *
+     * @param pipe The packed position of the pipe.
+     * @return The fluid the pipe held, or {@link FluidStack#EMPTY} if none was kept for it.
+     */
+    public FluidStack take(long pipe) {
+        final FluidStack fluid = stored.remove(pipe);
+        return fluid == null ? FluidStack.EMPTY : fluid;
+    }
+
+    /**
+     * Keeps the fluid of a pipe which is leaving the system, until it is added back.
+     *
+     * @param pipe  The packed position of the pipe.
+     * @param fluid The fluid the pipe holds.
+     */
+    void put(long pipe, FluidStack fluid) {
+        if (!fluid.isEmpty()) {
+            stored.put(pipe, fluid);
+        }
+    }
+
+    /**
+     * Called by the system when it adds a pipe in this chunk, so that saving the chunk also saves the fluid of the pipes which are part of it.
+     */
+    void bind(FluidTransportSystem system, ChunkPos pos) {
+        this.system = system;
+        this.pos = pos;
+    }
+
+    @Override
+    public CompoundTag serializeNBT(HolderLookup.Provider provider) {
+        final ListTag list = new ListTag();
+        for (Long2ObjectMap.Entry<FluidStack> entry : stored.long2ObjectEntrySet()) {
+            list.add(write(provider, entry.getLongKey(), entry.getValue()));
+        }
+        if (system != null && pos != null) {
+            system.forEachShare(pos, (pipe, fluid) -> list.add(write(provider, pipe, fluid)));
+        }
+        final CompoundTag tag = new CompoundTag();
+        tag.put("pipes", list);
+        return tag;
+    }
+
+    @Override
+    public void deserializeNBT(HolderLookup.Provider provider, CompoundTag tag) {
+        final ListTag list = tag.getList("pipes", Tag.TAG_COMPOUND);
+        for (int i = 0; i < list.size(); i++) {
+            final CompoundTag pipeTag = list.getCompound(i);
+            put(pipeTag.getLong("pos"), FluidStack.parseOptional(provider, pipeTag.getCompound("fluid")));
+        }
+    }
+
+    private static CompoundTag write(HolderLookup.Provider provider, long pipe, FluidStack fluid) {
+        final CompoundTag pipeTag = new CompoundTag();
+        pipeTag.putLong("pos", pipe);
+        pipeTag.put("fluid", fluid.save(provider));
+        return pipeTag;
+    }
+}
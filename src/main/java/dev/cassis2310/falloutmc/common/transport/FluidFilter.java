@@ -0,0 +1,83 @@
+package dev.cassis2310.falloutmc.common.transport;
+
+import dev.cassis2310.falloutmc.util.blocks.FluidHelpers;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.tags.TagKey;
+import net.minecraft.world.level.material.Fluid;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The fluids a type of fluid pipe may carry, given by a fluid tag.
+ * <p>
+ * The tag is checked against every registered fluid once, with {@link FluidHelpers#isFluid(Fluid, TagKey)}, and the matching fluids are
+ * kept in a set, so testing a fluid is a single set lookup. The sets are discarded by {@link #refreshAll()} when tags are reloaded, and
+ * rebuilt the next time they are used.
+ * <p>
+ * Filters are interned, so there is one filter per tag, and they can be compared by identity.
+ */
+public final class FluidFilter {
+    private static final Map<TagKey<Fluid>, FluidFilter> FILTERS = new ConcurrentHashMap<>();
+
+    /**
+     * A filter which accepts every fluid.
+     */
+    public static final FluidFilter ANY = new FluidFilter(null);
+
+    /**
+     * @param tag A fluid tag.
+     * @return The filter accepting the fluids in the tag.
+     */
+    public static FluidFilter of(TagKey<Fluid> tag) {
+        return FILTERS.computeIfAbsent(tag, FluidFilter::new);
+    }
+
+    /**
+     * Discards the fluids computed for every filter, when tags are reloaded.
+     */
+    public static void refreshAll() {
+        for (FluidFilter filter : FILTERS.values()) {
+            filter.accepted = null;
+        }
+    }
+
+    @Nullable private final TagKey<Fluid> tag;
+    @Nullable private volatile Set<Fluid> accepted;
+
+    private FluidFilter(@Nullable TagKey<Fluid> tag) {
+        this.tag = tag;
+    }
+
+    /**
+     * @param fluid A fluid.
+     * @return {@code true} if the fluid may be carried.
+     */
+    public boolean test(Fluid fluid) {
+        if (tag == null) {
+            return true;
+        }
+        Set<Fluid> fluids = accepted;
+        if (fluids == null) {
+            fluids = new ReferenceOpenHashSet<>();
+            for (Fluid candidate : BuiltInRegistries.FLUID) {
+                if (FluidHelpers.isFluid(candidate, tag)) {
+                    fluids.add(candidate);
+                }
+            }
+            accepted = fluids;
+        }
+        return fluids.contains(fluid);
+    }
+
+    /**
+     * @return The tag of accepted fluids, or {@code null} if every fluid is accepted.
+     */
+    @Nullable
+    public TagKey<Fluid> getTag() {
+        return tag;
+    }
+}
@@ -0,0 +1,132 @@
+package dev.cassis2310.falloutmc.common.transport;
+
+import dev.cassis2310.falloutmc.Config;
+import dev.cassis2310.falloutmc.common.networks.BlockNetwork;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.Direction;
+import net.neoforged.neoforge.capabilities.BlockCapabilityCache;
+import net.neoforged.neoforge.fluids.FluidStack;
+import net.neoforged.neoforge.fluids.capability.IFluidHandler;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A connected network of fluid pipes of one type, tracked by a {@link FluidTransportSystem}.
+ * <p>
+ * The fluid in a network is held as a single pool, rather than per pipe, with a capacity of {@link Config#fluidPipeCapacity} per pipe. When
+ * networks merge, their pools are combined. When a network is split, its pool is shared out in proportion to the size of each part. If a
+ * pipe is broken, the fluid in the network is squeezed into the remaining pipes, and only what no longer fits is lost. Pipes which are
+ * unloaded with their chunk instead take their share of the pool with them, which is saved in {@link ChunkPipeFluids} and returned to the
+ * network when they are loaded again.
+ * <p>
+ * Each network caches the tanks bordering it (its endpoints), which are only recomputed when the network's pipes, or the blocks bordering
+ * them, change.
+ */
+public class FluidNetwork extends BlockNetwork<FluidNetwork> {
+    static final Endpoint[] NO_ENDPOINTS = new Endpoint[0];
+
+    final FluidFilter filter;
+    FluidStack stored = FluidStack.EMPTY;
+    Endpoint[] sources = NO_ENDPOINTS;
+    Endpoint[] sinks = NO_ENDPOINTS;
+    final LongOpenHashSet endpointTargets = new LongOpenHashSet();
+    final LongOpenHashSet chunks = new LongOpenHashSet();
+    boolean endpointsDirty = true;
+    boolean fluidChanged;
+    int generation;
+
+    FluidNetwork(FluidFilter filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * @return The fluids this network may carry.
+     */
+    public FluidFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * @return A copy of the fluid in the network.
+     */
+    public FluidStack getFluid() {
+        return stored.copy();
+    }
+
+    /**
+     * @return The most fluid the network can hold.
+     */
+    public int getCapacity() {
+        return size() * Config.fluidPipeCapacity;
+    }
+
+    /**
+     * Marks the cached endpoints as out of date. They are recomputed the next time the network is ticked.
+     */
+    public void invalidateEndpoints() {
+        endpointsDirty = true;
+    }
+
+    @Override
+    protected void onTopologyChanged() {
+        invalidateEndpoints();
+        fluidChanged = true; // Each pipe's share of the pool has changed
+        squeeze();
+    }
+
+    @Override
+    protected void onMerged(FluidNetwork other) {
+        receive(other.stored);
+        other.stored = FluidStack.EMPTY;
+    }
+
+    @Override
+    protected void onSplit(FluidNetwork from) {
+        final int share = (int) ((long) from.stored.getAmount() * size() / (size() + from.size()));
+        if (share > 0) {
+            setStored(from.stored.copyWithAmount(share));
+            from.setStored(from.stored.copyWithAmount(from.stored.getAmount() - share));
+        }
+    }
+
+    /**
+     * Adds fluid to the pool. Fluid which does not fit is only removed by the next {@link #squeeze()}.
+     */
+    void receive(FluidStack fluid) {
+        if (fluid.isEmpty()) {
+            return;
+        }
+        if (stored.isEmpty()) {
+            setStored(fluid);
+        } else if (FluidStack.isSameFluidSameComponents(stored, fluid)) {
+            stored.grow(fluid.getAmount());
+            fluidChanged = true;
+        } else if (fluid.getAmount() > stored.getAmount()) {
+            setStored(fluid); // Different fluids cannot share a network, so the larger pool wins
+        }
+    }
+
+    /**
+     * Discards any fluid which no longer fits in the network.
+     */
+    void squeeze() {
+        final int capacity = getCapacity();
+        if (stored.getAmount() > capacity) {
+            setStored(stored.copyWithAmount(capacity));
+        }
+    }
+
+    void setStored(FluidStack stack) {
+        stored = stack.isEmpty() ? FluidStack.EMPTY : stack;
+        fluidChanged = true;
+    }
+
+    /**
+     * A tank bordering the network.
+     *
+     * @param pipe   The packed position of the pipe the tank borders.
+     * @param side   The direction of the tank, from the pipe.
+     * @param target The packed position of the tank.
+     * @param cache  The tank's fluid handler, as seen from the pipe.
+     */
+    record Endpoint(long pipe, Direction side, long target, BlockCapabilityCache<IFluidHandler, @Nullable Direction> cache) {}
+}
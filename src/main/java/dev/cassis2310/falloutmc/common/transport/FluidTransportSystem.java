@@ -0,0 +1,437 @@
+package dev.cassis2310.falloutmc.common.transport;
+
+import dev.cassis2310.falloutmc.Config;
+import dev.cassis2310.falloutmc.common.FalloutMcAttachmentTypes;
+import dev.cassis2310.falloutmc.common.networks.BlockNetworkGraph;
+import dev.cassis2310.falloutmc.util.capabilities.CapabilityHelpers;
+import dev.cassis2310.falloutmc.util.directions.DirectionHelpers;
+import dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.neoforged.neoforge.capabilities.BlockCapabilityCache;
+import net.neoforged.neoforge.capabilities.Capabilities;
+import net.neoforged.neoforge.fluids.FluidStack;
+import net.neoforged.neoforge.fluids.capability.IFluidHandler;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves fluids through networks of fluid pipes in a level.
+ * <p>
+ * Each type of pipe carries the fluids accepted by its {@link FluidFilter}, and only connects to pipes of the same type, so each filter has
+ * its own {@link BlockNetworkGraph}. Within a network, fluid is solved at the level of the whole network rather than per pipe: the network
+ * holds one pool of fluid (see {@link FluidNetwork}), and each tick makes one pass over its endpoints, first draining the tanks it extracts
+ * from into the pool, then sharing the pool evenly between every other tank. This touches only the tanks bordering the network, never the
+ * pipes in it, so the cost per tick does not depend on how many pipes a network has.
+ * <p>
+ * The tanks bordering a network are looked up once, when its pipes or their neighbours change, and are then held in
+ * {@link BlockCapabilityCache}s. Networks with nothing to extract from and no fluid in them cost nothing per tick.
+ * <p>
+ * Block changes next to pipes are observed through {@link net.neoforged.neoforge.event.level.BlockEvent.NeighborNotifyEvent}. The networks
+ * live only in memory, so pipes must be added again (for instance, from their block entity's {@code onLoad}) when their chunk is loaded. The
+ * fluid in them is not lost though: each pipe's share of its network's pool is saved with its chunk, in {@link ChunkPipeFluids}, and when
+ * a chunk unloads its pipes are taken out of their networks along with their share. Adding a pipe back returns its saved fluid to its
+ * network. Whenever a network's pool changes, the chunks its pipes are in are marked as unsaved, so the saved shares stay up to date.
+ */
+public class FluidTransportSystem {
+    private static final Map<LevelAccessor, FluidTransportSystem> SYSTEMS = new IdentityHashMap<>();
+
+    /**
+     * Returns the fluid transport system for a level, creating it if necessary.
+     *
+     * @param level The level.
+     * @return The fluid transport system for that level.
+     */
+    public static FluidTransportSystem get(ServerLevel level) {
+        return SYSTEMS.computeIfAbsent(level, key -> new FluidTransportSystem(level));
+    }
+
+    /**
+     * @param level The level.
+     * @return The fluid transport system for the level, or {@code null} if no pipes have been added to it.
+     */
+    @Nullable
+    public static FluidTransportSystem getIfPresent(LevelAccessor level) {
+        return SYSTEMS.get(level);
+    }
+
+    /**
+     * Discards the fluid transport system for a level, when the level is unloaded.
+     *
+     * @param level The level.
+     */
+    public static void remove(LevelAccessor level) {
+        SYSTEMS.remove(level);
+    }
+
+    private final ServerLevel level;
+    private final Map<FluidFilter, BlockNetworkGraph<FluidNetwork>> graphs = new IdentityHashMap<>();
+    private final Long2ObjectOpenHashMap<FluidFilter> pipeFilters = new Long2ObjectOpenHashMap<>();
+    private final Long2ByteOpenHashMap extractingSides = new Long2ByteOpenHashMap();
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> pipesByChunk = new Long2ObjectOpenHashMap<>();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private long fluidMoved;
+
+    private FluidTransportSystem(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Adds a pipe, when it is placed or loaded. Any fluid saved with the pipe is returned to its network.
+     *
+     * @param pos    The position of the pipe.
+     * @param filter The fluids the pipe carries. Pipes only connect to adjacent pipes with the same filter.
+     * @return The network the pipe is now part of.
+     */
+    public FluidNetwork addPipe(BlockPos pos, FluidFilter filter) {
+        final long key = pos.asLong();
+        final FluidFilter previous = pipeFilters.put(key, filter);
+        if (previous != null && previous != filter) {
+            graphs.get(previous).remove(key);
+        }
+        final FluidNetwork network = graphs.computeIfAbsent(filter, f -> new BlockNetworkGraph<>(() -> new FluidNetwork(f))).add(key);
+        if (previous == null) {
+            pipesByChunk.computeIfAbsent(chunkKey(key), k -> new LongOpenHashSet()).add(key);
+            final LevelChunk chunk = level.getChunkSource().getChunkNow(SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ()));
+            if (chunk != null) {
+                final ChunkPipeFluids saved = chunk.getData(FalloutMcAttachmentTypes.PIPE_FLUIDS);
+                saved.bind(this, chunk.getPos());
+                network.receive(saved.take(key));
+                network.squeeze();
+            }
+        }
+        return network;
+    }
+
+    /**
+     * Removes a pipe, when it is broken. The fluid in its network is squeezed into the remaining pipes, and what no longer fits is lost.
+     * <p>
+     * Pipes in a chunk which is unloading are removed by {@link #onChunkUnloaded(LevelChunk)} instead, before the chunk is saved, so their
+     * fluid is kept. Calling this for them afterwards has no effect on what was saved.
+     *
+     * @param pos The position of the pipe.
+     */
+    public void removePipe(BlockPos pos) {
+        final long key = pos.asLong();
+        final FluidFilter filter = pipeFilters.remove(key);
+        if (filter != null) {
+            graphs.get(filter).remove(key);
+            removeFromChunk(key);
+        }
+        extractingSides.remove(key);
+
+        // A pipe broken before it was added back after being loaded also loses the fluid saved with it
+        final LevelChunk chunk = level.getChunkSource().getChunkNow(SectionPos.blockToSectionCoord(pos.getX()), SectionPos.blockToSectionCoord(pos.getZ()));
+        if (chunk != null && chunk.hasData(FalloutMcAttachmentTypes.PIPE_FLUIDS)) {
+            chunk.getData(FalloutMcAttachmentTypes.PIPE_FLUIDS).take(key);
+        }
+    }
+
+    /**
+     * Takes every pipe in a chunk which is unloading out of its network, along with its share of the network's fluid, which is kept in the
+     * chunk's {@link ChunkPipeFluids} to be saved with it. The rest of each network keeps the rest of its fluid. Called before the chunk is
+     * saved.
+     *
+     * @param chunk The chunk.
+     */
+    public void onChunkUnloaded(LevelChunk chunk) {
+        final LongOpenHashSet pipes = pipesByChunk.remove(chunk.getPos().toLong());
+        if (pipes == null) {
+            return;
+        }
+        final ChunkPipeFluids saved = chunk.getData(FalloutMcAttachmentTypes.PIPE_FLUIDS);
+        forEachShare(pipes, (pipe, fluid) -> {
+            final FluidNetwork network = getNetwork(pipe);
+            network.setStored(network.stored.copyWithAmount(network.stored.getAmount() - fluid.getAmount()));
+            saved.put(pipe, fluid);
+        });
+        for (LongIterator it = pipes.iterator(); it.hasNext(); ) {
+            final long pipe = it.nextLong();
+            graphs.get(pipeFilters.remove(pipe)).remove(pipe);
+            extractingSides.remove(pipe);
+        }
+        chunk.setUnsaved(true);
+    }
+
+    /**
+     * @param pos A position.
+     * @return The network of the pipe at the position, or {@code null} if there is no pipe there.
+     */
+    @Nullable
+    public FluidNetwork getNetwork(BlockPos pos) {
+        return getNetwork(pos.asLong());
+    }
+
+    /**
+     * Sets whether a pipe drains fluid from the tank on one of its sides. Tanks which are drained from are not filled.
+     *
+     * @param pos        The position of the pipe.
+     * @param side       The side of the pipe the tank is on.
+     * @param extracting {@code true} if fluid should be drained.
+     */
+    public void setExtracting(BlockPos pos, Direction side, boolean extracting) {
+        final long key = pos.asLong();
+        final byte previous = extractingSides.get(key);
+        final byte sides = (byte) (extracting ? previous | (1 << side.ordinal()) : previous & ~(1 << side.ordinal()));
+        if (sides == previous) {
+            return;
+        }
+        if (sides == 0) {
+            extractingSides.remove(key);
+        } else {
+            extractingSides.put(key, sides);
+        }
+        final FluidNetwork network = getNetwork(key);
+        if (network != null) {
+            network.invalidateEndpoints();
+        }
+    }
+
+    /**
+     * @param pos  The position of a pipe.
+     * @param side A side of the pipe.
+     * @return {@code true} if the pipe drains fluid from the tank on that side.
+     */
+    public boolean isExtracting(BlockPos pos, Direction side) {
+        return (extractingSides.get(pos.asLong()) & (1 << side.ordinal())) != 0;
+    }
+
+    /**
+     * @return The total amount of fluid moved into tanks through pipes in this level, for measuring throughput.
+     */
+    public long getFluidMoved() {
+        return fluidMoved;
+    }
+
+    /**
+     * Invalidates the endpoints of any network bordering {@code pos}, if the block there has become, or stopped being, a tank.
+     *
+     * @param pos The position which changed.
+     */
+    public void onBlockChanged(BlockPos pos) {
+        final long key = pos.asLong();
+        if (pipeFilters.containsKey(key)) {
+            return; // Changes to the pipes themselves are handled by adding and removing them
+        }
+        for (Direction direction : DirectionHelpers.DIRECTIONS) {
+            final FluidNetwork network = getNetwork(PackedPosHelpers.relative(key, direction));
+            if (network != null && !network.endpointsDirty) {
+                final boolean isTank = CapabilityHelpers.getCapability(Capabilities.FluidHandler.BLOCK, level, pos, direction) != null;
+                if (isTank != network.endpointTargets.contains(key)) {
+                    network.invalidateEndpoints();
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves fluid through every network. Called once per level tick.
+     */
+    public void tick() {
+        for (BlockNetworkGraph<FluidNetwork> graph : graphs.values()) {
+            for (FluidNetwork network : graph.getNetworks()) {
+                if (network.endpointsDirty) {
+                    computeEndpoints(graph, network);
+                }
+                if (network.sources.length > 0 || !network.stored.isEmpty()) {
+                    transfer(network);
+                }
+                if (network.fluidChanged) {
+                    network.fluidChanged = false;
+                    markUnsaved(network);
+                }
+            }
+        }
+    }
+
+    /**
+     * Works out the share of its network's fluid held by each pipe in a chunk, as saved with the chunk. Each network's pool is shared
+     * evenly between its pipes, so the pipes of a network in one chunk hold {@code pool * pipesInChunk / pipesInNetwork} between them.
+     *
+     * @param chunk    The chunk.
+     * @param consumer Accepts the packed position of each pipe holding any fluid, and its share.
+     */
+    void forEachShare(ChunkPos chunk, ShareConsumer consumer) {
+        final LongOpenHashSet pipes = pipesByChunk.get(chunk.toLong());
+        if (pipes != null) {
+            forEachShare(pipes, consumer);
+        }
+    }
+
+    private void forEachShare(LongSet pipes, ShareConsumer consumer) {
+        final Reference2IntOpenHashMap<FluidNetwork> pipesLeft = new Reference2IntOpenHashMap<>();
+        for (LongIterator it = pipes.iterator(); it.hasNext(); ) {
+            final FluidNetwork network = getNetwork(it.nextLong());
+            if (network != null && !network.stored.isEmpty()) {
+                pipesLeft.addTo(network, 1);
+            }
+        }
+        final Reference2IntOpenHashMap<FluidNetwork> amountLeft = new Reference2IntOpenHashMap<>();
+        for (Reference2IntMap.Entry<FluidNetwork> entry : pipesLeft.reference2IntEntrySet()) {
+            final FluidNetwork network = entry.getKey();
+            amountLeft.put(network, (int) ((long) network.stored.getAmount() * entry.getIntValue() / network.size()));
+        }
+        for (LongIterator it = pipes.iterator(); it.hasNext(); ) {
+            final long pipe = it.nextLong();
+            final FluidNetwork network = getNetwork(pipe);
+            if (network == null || !pipesLeft.containsKey(network)) {
+                continue;
+            }
+            // Share the network's amount in this chunk evenly between its pipes here, spreading any remainder over the first few
+            final int left = pipesLeft.addTo(network, -1);
+            final int amount = amountLeft.getInt(network);
+            final int share = Math.ceilDiv(amount, left);
+            amountLeft.put(network, amount - share);
+            if (share > 0) {
+                consumer.accept(pipe, network.stored.copyWithAmount(share));
+            }
+        }
+    }
+
+    /**
+     * Marks every chunk the network's pipes are in as unsaved, as their share of its fluid has changed.
+     */
+    private void markUnsaved(FluidNetwork network) {
+        for (LongIterator it = network.chunks.iterator(); it.hasNext(); ) {
+            final long pos = it.nextLong();
+            final LevelChunk chunk = level.getChunkSource().getChunkNow(ChunkPos.getX(pos), ChunkPos.getZ(pos));
+            if (chunk != null) {
+                chunk.setUnsaved(true);
+            }
+        }
+    }
+
+    private void removeFromChunk(long pipe) {
+        final long chunk = chunkKey(pipe);
+        final LongOpenHashSet pipes = pipesByChunk.get(chunk);
+        if (pipes != null && pipes.remove(pipe) && pipes.isEmpty()) {
+            pipesByChunk.remove(chunk);
+        }
+    }
+
+    private static long chunkKey(long pos) {
+        return ChunkPos.asLong(SectionPos.blockToSectionCoord(PackedPosHelpers.getX(pos)), SectionPos.blockToSectionCoord(PackedPosHelpers.getZ(pos)));
+    }
+
+    /**
+     * Drains each source into the network's pool, then shares the pool between the sinks, in a single pass.
+     */
+    private void transfer(FluidNetwork network) {
+        final int rate = Config.fluidTransferRate;
+        final int capacity = network.getCapacity();
+        for (FluidNetwork.Endpoint source : network.sources) {
+            final int space = capacity - network.stored.getAmount();
+            if (space <= 0) {
+                break;
+            }
+            final IFluidHandler handler = source.cache().getCapability();
+            if (handler == null) {
+                continue;
+            }
+            final int amount = Math.min(rate, space);
+            final FluidStack available = network.stored.isEmpty()
+                ? handler.drain(amount, IFluidHandler.FluidAction.SIMULATE)
+                : handler.drain(network.stored.copyWithAmount(amount), IFluidHandler.FluidAction.SIMULATE);
+            if (available.isEmpty() || !network.filter.test(available.getFluid())) {
+                continue;
+            }
+            final FluidStack drained = handler.drain(available, IFluidHandler.FluidAction.EXECUTE);
+            if (!drained.isEmpty()) {
+                if (network.stored.isEmpty()) {
+                    network.setStored(drained.copy());
+                } else {
+                    network.stored.grow(drained.getAmount());
+                    network.fluidChanged = true;
+                }
+            }
+        }
+
+        final FluidNetwork.Endpoint[] sinks = network.sinks;
+        for (int i = 0; i < sinks.length && !network.stored.isEmpty(); i++) {
+            final IFluidHandler handler = sinks[i].cache().getCapability();
+            if (handler == null) {
+                continue;
+            }
+            // Share what is left evenly between the sinks which have not been offered any yet
+            final int offer = Math.min(rate, Math.ceilDiv(network.stored.getAmount(), sinks.length - i));
+            final int filled = handler.fill(network.stored.copyWithAmount(offer), IFluidHandler.FluidAction.EXECUTE);
+            if (filled > 0) {
+                fluidMoved += filled;
+                network.setStored(network.stored.copyWithAmount(network.stored.getAmount() - filled));
+            }
+        }
+    }
+
+    /**
+     * Finds every tank bordering a network.
+     */
+    private void computeEndpoints(BlockNetworkGraph<FluidNetwork> graph, FluidNetwork network) {
+        final int generation = ++network.generation; // Stops the caches of the previous endpoints from invalidating the network
+        final List<FluidNetwork.Endpoint> sources = new ArrayList<>();
+        final List<FluidNetwork.Endpoint> sinks = new ArrayList<>();
+        network.endpointTargets.clear();
+        network.chunks.clear();
+
+        for (LongIterator it = network.nodes().iterator(); it.hasNext(); ) {
+            final long pipe = it.nextLong();
+            network.chunks.add(chunkKey(pipe));
+            final byte extracting = extractingSides.get(pipe);
+            for (Direction side : DirectionHelpers.DIRECTIONS) {
+                final long target = PackedPosHelpers.relative(pipe, side);
+                if (graph.contains(target) || !level.isLoaded(PackedPosHelpers.setMutable(cursor, target))) {
+                    continue;
+                }
+                if (CapabilityHelpers.getCapability(Capabilities.FluidHandler.BLOCK, level, cursor, side.getOpposite()) == null) {
+                    continue;
+                }
+                final BlockCapabilityCache<IFluidHandler, @Nullable Direction> cache = BlockCapabilityCache.create(Capabilities.FluidHandler.BLOCK, level, cursor.immutable(), side.getOpposite(),
+                    () -> !network.isRemoved() && network.generation == generation, network::invalidateEndpoints);
+                final FluidNetwork.Endpoint endpoint = new FluidNetwork.Endpoint(pipe, side, target, cache);
+                ((extracting & (1 << side.ordinal())) != 0 ? sources : sinks).add(endpoint);
+                network.endpointTargets.add(target);
+            }
+        }
+
+        // A tank which is drained from one side is never filled from another
+        for (FluidNetwork.Endpoint source : sources) {
+            sinks.removeIf(sink -> sink.target() == source.target());
+        }
+        network.sources = sources.toArray(FluidNetwork.NO_ENDPOINTS);
+        network.sinks = sinks.toArray(FluidNetwork.NO_ENDPOINTS);
+        network.endpointsDirty = false;
+    }
+
+    @Nullable
+    private FluidNetwork getNetwork(long pos) {
+        final FluidFilter filter = pipeFilters.get(pos);
+        return filter == null ? null : graphs.get(filter).getNetwork(pos);
+    }
+
+    /**
+     * Receives the share of fluid held by a pipe.
+     */
+    @FunctionalInterface
+    interface ShareConsumer {
+        /**
+         * @param pipe  The packed position of the pipe.
+         * @param fluid The pipe's share of its network's fluid. This is a copy, which may be kept.
+         */
+        void accept(long pipe, FluidStack fluid);
+    }
+}
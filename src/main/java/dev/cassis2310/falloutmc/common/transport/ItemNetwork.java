@@ -0,0 +1,54 @@
+package dev.cassis2310.falloutmc.common.transport;
+
+import dev.cassis2310.falloutmc.common.networks.BlockNetwork;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.Direction;
+import net.neoforged.neoforge.capabilities.BlockCapabilityCache;
+import net.neoforged.neoforge.items.IItemHandler;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A connected network of item pipes, tracked by an {@link ItemTransportSystem}.
+ * <p>
+ * Each network caches the inventories bordering it (its endpoints), and, for each inventory items are extracted from, the inventories they
+ * can be delivered to, ordered by the length of the shortest path through the pipes. These routes are only recomputed when the network's
+ * pipes, or the blocks bordering them, change.
+ */
+public class ItemNetwork extends BlockNetwork<ItemNetwork> {
+    static final Endpoint[] NO_ENDPOINTS = new Endpoint[0];
+
+    Endpoint[] sources = NO_ENDPOINTS;
+    Endpoint[][] routes = new Endpoint[0][];
+    final LongOpenHashSet endpointTargets = new LongOpenHashSet();
+    boolean routesDirty = true;
+    int generation;
+
+    /**
+     * @return The number of inventories items are extracted from, as of the last time routes were computed.
+     */
+    public int getSourceCount() {
+        return sources.length;
+    }
+
+    /**
+     * Marks the cached endpoints and routes as out of date. They are recomputed the next time the network transfers items.
+     */
+    public void invalidateRoutes() {
+        routesDirty = true;
+    }
+
+    @Override
+    protected void onTopologyChanged() {
+        invalidateRoutes();
+    }
+
+    /**
+     * An inventory bordering the network.
+     *
+     * @param pipe   The packed position of the pipe the inventory borders.
+     * @param side   The direction of the inventory, from the pipe.
+     * @param target The packed position of the inventory.
+     * @param cache  The inventory's item handler, as seen from the pipe.
+     */
+    record Endpoint(long pipe, Direction side, long target, BlockCapabilityCache<IItemHandler, @Nullable Direction> cache) {}
+}
@@ -0,0 +1,309 @@
+package dev.cassis2310.falloutmc.common.transport;
+
+import dev.cassis2310.falloutmc.Config;
+import dev.cassis2310.falloutmc.common.networks.BlockNetworkGraph;
+import dev.cassis2310.falloutmc.util.capabilities.CapabilityHelpers;
+import dev.cassis2310.falloutmc.util.directions.DirectionHelpers;
+import dev.cassis2310.falloutmc.util.inventories.InventoryHelpers;
+import dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.LevelAccessor;
+import net.neoforged.neoforge.capabilities.BlockCapabilityCache;
+import net.neoforged.neoforge.capabilities.Capabilities;
+import net.neoforged.neoforge.items.IItemHandler;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves items through networks of item pipes in a level.
+ * <p>
+ * Pipes are added and removed by their blocks (see {@link #addPipe(BlockPos)} and {@link #removePipe(BlockPos)}), and grouped into
+ * {@link ItemNetwork}s by a {@link BlockNetworkGraph}, which keeps connected components up to date incrementally. Everything else is cached
+ * per network, and only recomputed for networks which have changed:
+ * <ul>
+ *     <li>The inventories bordering the network are looked up once, and each is then held in a {@link BlockCapabilityCache}.</li>
+ *     <li>For each inventory items are extracted from, every other inventory is ordered by its distance through the pipes, found with one
+ *     breadth first search per extracting pipe.</li>
+ * </ul>
+ * Every {@link Config#itemTransferInterval} ticks, each network with at least one extracting pipe moves one batch of up to
+ * {@link Config#itemsPerTransfer} items out of each of its sources, delivering them to the nearest inventories which accept them. Networks
+ * without any extracting pipes cost nothing per tick.
+ * <p>
+ * Block changes next to pipes are observed through {@link net.neoforged.neoforge.event.level.BlockEvent.NeighborNotifyEvent}, so that
+ * inventories placed next to a network become endpoints. The system lives only in memory, so pipes must be added again (for instance, from
+ * their block entity's {@code onLoad}) when a level is loaded.
+ */
+public class ItemTransportSystem {
+    private static final Map<LevelAccessor, ItemTransportSystem> SYSTEMS = new IdentityHashMap<>();
+
+    /**
+     * Returns the item transport system for a level, creating it if necessary.
+     *
+     * @param level The level.
+     * @return The item transport system for that level.
+     */
+    public static ItemTransportSystem get(ServerLevel level) {
+        return SYSTEMS.computeIfAbsent(level, key -> new ItemTransportSystem(level));
+    }
+
+    /**
+     * @param level The level.
+     * @return The item transport system for the level, or {@code null} if no pipes have been added to it.
+     */
+    @Nullable
+    public static ItemTransportSystem getIfPresent(LevelAccessor level) {
+        return SYSTEMS.get(level);
+    }
+
+    /**
+     * Discards the item transport system for a level, when the level is unloaded.
+     *
+     * @param level The level.
+     */
+    public static void remove(LevelAccessor level) {
+        SYSTEMS.remove(level);
+    }
+
+    private final ServerLevel level;
+    private final BlockNetworkGraph<ItemNetwork> graph = new BlockNetworkGraph<>(ItemNetwork::new);
+    private final Long2ByteOpenHashMap extractingSides = new Long2ByteOpenHashMap();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+    private long itemsMoved;
+
+    // Scratch collections, kept between ticks to avoid reallocating them
+    private final Set<ItemNetwork> active = new ReferenceOpenHashSet<>();
+    private final Long2IntOpenHashMap distances = new Long2IntOpenHashMap();
+    private final LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+
+    private ItemTransportSystem(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Adds a pipe, when it is placed or loaded.
+     *
+     * @param pos The position of the pipe.
+     * @return The network the pipe is now part of.
+     */
+    public ItemNetwork addPipe(BlockPos pos) {
+        return graph.add(pos);
+    }
+
+    /**
+     * Removes a pipe, when it is broken or unloaded.
+     *
+     * @param pos The position of the pipe.
+     */
+    public void removePipe(BlockPos pos) {
+        graph.remove(pos);
+        extractingSides.remove(pos.asLong());
+    }
+
+    /**
+     * @param pos A position.
+     * @return The network of the pipe at the position, or {@code null} if there is no pipe there.
+     */
+    @Nullable
+    public ItemNetwork getNetwork(BlockPos pos) {
+        return graph.getNetwork(pos);
+    }
+
+    /**
+     * Sets whether a pipe extracts items from the inventory on one of its sides. Inventories which are extracted from are not delivered to.
+     *
+     * @param pos        The position of the pipe.
+     * @param side       The side of the pipe the inventory is on.
+     * @param extracting {@code true} if items should be extracted.
+     */
+    public void setExtracting(BlockPos pos, Direction side, boolean extracting) {
+        final long key = pos.asLong();
+        final byte previous = extractingSides.get(key);
+        final byte sides = (byte) (extracting ? previous | (1 << side.ordinal()) : previous & ~(1 << side.ordinal()));
+        if (sides == previous) {
+            return;
+        }
+        if (sides == 0) {
+            extractingSides.remove(key);
+        } else {
+            extractingSides.put(key, sides);
+        }
+        final ItemNetwork network = graph.getNetwork(key);
+        if (network != null) {
+            network.invalidateRoutes();
+        }
+    }
+
+    /**
+     * @param pos  The position of a pipe.
+     * @param side A side of the pipe.
+     * @return {@code true} if the pipe extracts items from the inventory on that side.
+     */
+    public boolean isExtracting(BlockPos pos, Direction side) {
+        return (extractingSides.get(pos.asLong()) & (1 << side.ordinal())) != 0;
+    }
+
+    /**
+     * @return The total number of items moved through pipes in this level, for measuring throughput.
+     */
+    public long getItemsMoved() {
+        return itemsMoved;
+    }
+
+    /**
+     * Invalidates the routes of any network bordering {@code pos}, if the block there has become, or stopped being, an inventory.
+     *
+     * @param pos The position which changed.
+     */
+    public void onBlockChanged(BlockPos pos) {
+        final long key = pos.asLong();
+        if (graph.contains(key)) {
+            return; // Changes to the pipes themselves are handled by adding and removing them
+        }
+        for (Direction direction : DirectionHelpers.DIRECTIONS) {
+            final ItemNetwork network = graph.getNetwork(PackedPosHelpers.relative(key, direction));
+            if (network != null && !network.routesDirty) {
+                final boolean isInventory = CapabilityHelpers.getCapability(Capabilities.ItemHandler.BLOCK, level, pos, direction) != null;
+                if (isInventory != network.endpointTargets.contains(key)) {
+                    network.invalidateRoutes();
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves items through every network with an extracting pipe, if a transfer is due this tick. Called once per level tick.
+     */
+    public void tick() {
+        if (extractingSides.isEmpty() || level.getGameTime() % Config.itemTransferInterval != 0) {
+            return;
+        }
+        for (LongIterator it = extractingSides.keySet().iterator(); it.hasNext(); ) {
+            final ItemNetwork network = graph.getNetwork(it.nextLong());
+            if (network != null) {
+                active.add(network);
+            }
+        }
+        for (ItemNetwork network : active) {
+            if (network.routesDirty) {
+                computeRoutes(network);
+            }
+            transfer(network);
+        }
+        active.clear();
+    }
+
+    /**
+     * Moves one batch of items out of each source of a network.
+     */
+    private void transfer(ItemNetwork network) {
+        final int batchSize = Config.itemsPerTransfer;
+        for (int i = 0; i < network.sources.length; i++) {
+            final ItemNetwork.Endpoint[] route = network.routes[i];
+            final IItemHandler source = route.length == 0 ? null : network.sources[i].cache().getCapability();
+            if (source == null) {
+                continue;
+            }
+            for (int slot = 0; slot < source.getSlots(); slot++) {
+                final ItemStack extracted = source.extractItem(slot, batchSize, true);
+                if (extracted.isEmpty()) {
+                    continue;
+                }
+                ItemStack remainder = extracted;
+                for (ItemNetwork.Endpoint destination : route) {
+                    final IItemHandler inventory = destination.cache().getCapability();
+                    if (inventory != null) {
+                        remainder = InventoryHelpers.insertSlots(inventory, remainder, 0, inventory.getSlots());
+                        if (remainder.isEmpty()) {
+                            break;
+                        }
+                    }
+                }
+                final int moved = extracted.getCount() - remainder.getCount();
+                if (moved > 0) {
+                    source.extractItem(slot, moved, false);
+                    itemsMoved += moved;
+                    break; // One batch per source
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds every inventory bordering a network, and orders the destinations of each source by their distance through the pipes.
+     */
+    private void computeRoutes(ItemNetwork network) {
+        final int generation = ++network.generation; // Stops the caches of the previous endpoints from invalidating the network
+        final List<ItemNetwork.Endpoint> sources = new ArrayList<>();
+        final List<ItemNetwork.Endpoint> destinations = new ArrayList<>();
+        network.endpointTargets.clear();
+
+        for (LongIterator it = network.nodes().iterator(); it.hasNext(); ) {
+            final long pipe = it.nextLong();
+            final byte extracting = extractingSides.get(pipe);
+            for (Direction side : DirectionHelpers.DIRECTIONS) {
+                final long target = PackedPosHelpers.relative(pipe, side);
+                if (graph.contains(target) || !level.isLoaded(PackedPosHelpers.setMutable(cursor, target))) {
+                    continue;
+                }
+                if (CapabilityHelpers.getCapability(Capabilities.ItemHandler.BLOCK, level, cursor, side.getOpposite()) == null) {
+                    continue;
+                }
+                final BlockCapabilityCache<IItemHandler, @Nullable Direction> cache = BlockCapabilityCache.create(Capabilities.ItemHandler.BLOCK, level, cursor.immutable(), side.getOpposite(),
+                    () -> !network.isRemoved() && network.generation == generation, network::invalidateRoutes);
+                final ItemNetwork.Endpoint endpoint = new ItemNetwork.Endpoint(pipe, side, target, cache);
+                ((extracting & (1 << side.ordinal())) != 0 ? sources : destinations).add(endpoint);
+                network.endpointTargets.add(target);
+            }
+        }
+
+        network.sources = sources.toArray(ItemNetwork.NO_ENDPOINTS);
+        network.routes = new ItemNetwork.Endpoint[network.sources.length][];
+        long searchedPipe = Long.MAX_VALUE;
+        for (int i = 0; i < network.sources.length; i++) {
+            final ItemNetwork.Endpoint source = network.sources[i];
+            if (source.pipe() != searchedPipe) {
+                searchDistances(network, source.pipe());
+                searchedPipe = source.pipe();
+            }
+            network.routes[i] = destinations.stream()
+                .filter(destination -> destination.target() != source.target())
+                .sorted(Comparator.comparingInt(destination -> distances.get(destination.pipe())))
+                .toArray(ItemNetwork.Endpoint[]::new);
+        }
+        network.routesDirty = false;
+    }
+
+    /**
+     * Fills {@link #distances} with the length of the shortest path from {@code start} to every pipe in the network.
+     */
+    private void searchDistances(ItemNetwork network, long start) {
+        distances.clear();
+        distances.put(start, 0);
+        queue.enqueue(start);
+        while (!queue.isEmpty()) {
+            final long current = queue.dequeueLong();
+            final int distance = distances.get(current) + 1;
+            for (int direction = 0; direction < 6; direction++) {
+                final long neighbour = PackedPosHelpers.relative(current, direction);
+                if (network.contains(neighbour) && !distances.containsKey(neighbour)) {
+                    distances.put(neighbour, distance);
+                    queue.enqueue(neighbour);
+                }
+            }
+        }
+    }
+}
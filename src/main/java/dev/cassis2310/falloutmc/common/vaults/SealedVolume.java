@@ -0,0 +1,77 @@
+package dev.cassis2310.falloutmc.common.vaults;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+
+/**
+ * A connected region of non-airtight blocks tracked by a {@link SealedVolumeTracker}, along with the cached set of airtight blocks
+ * bordering it. A volume is <strong>sealed</strong> if the region is completely enclosed, and no larger than its maximum volume.
+ * <p>
+ * Unsealed volumes only know about the part of their region that was walked before the walk gave up, so their interior is a lower bound.
+ */
+public class SealedVolume {
+    final LongOpenHashSet interior;
+    final LongOpenHashSet boundary;
+    final int maxVolume;
+    long origin;
+    boolean sealed;
+
+    SealedVolume(long origin, int maxVolume, LongOpenHashSet interior, LongOpenHashSet boundary, boolean sealed) {
+        this.origin = origin;
+        this.maxVolume = maxVolume;
+        this.interior = interior;
+        this.boundary = boundary;
+        this.sealed = sealed;
+    }
+
+    /**
+     * @return {@code true} if the volume is completely enclosed by airtight blocks.
+     */
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    /**
+     * @return The number of blocks in the volume.
+     */
+    public int size() {
+        return interior.size();
+    }
+
+    /**
+     * @return The largest number of blocks this volume may contain and still count as sealed.
+     */
+    public int getMaxVolume() {
+        return maxVolume;
+    }
+
+    /**
+     * @return A packed position inside the volume, which it was originally tracked from.
+     */
+    public long getOrigin() {
+        return origin;
+    }
+
+    /**
+     * @param pos A packed position.
+     * @return {@code true} if the position is inside the volume.
+     */
+    public boolean contains(long pos) {
+        return interior.contains(pos);
+    }
+
+    /**
+     * @return An unmodifiable view of the packed positions inside the volume.
+     */
+    public LongSet interior() {
+        return LongSets.unmodifiable(interior);
+    }
+
+    /**
+     * @return An unmodifiable view of the packed positions of airtight blocks bordering the volume.
+     */
+    public LongSet boundary() {
+        return LongSets.unmodifiable(boundary);
+    }
+}
@@ -0,0 +1,490 @@
+package dev.cassis2310.falloutmc.common.vaults;
+
+import dev.cassis2310.falloutmc.util.blocks.BlockHelpers;
+import dev.cassis2310.falloutmc.util.worlds.CachedSectionReader;
+import dev.cassis2310.falloutmc.util.worlds.FloodFill;
+import dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.LevelAccessor;
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tracks enclosed air volumes (such as vaults) in a level, and keeps them up to date incrementally as blocks change.
+ * <p>
+ * A volume is found once with a full {@link FloodFill} from its origin. After that, each block change only re-walks the affected part:
+ * <ul>
+ *     <li>Changes to positions which neither lie inside, nor border, a tracked volume cost a handful of hash lookups.</li>
+ *     <li>Opening a boundary block walks only the newly connected region, up to the volume's remaining size budget. Either the new region is
+ *     enclosed and is merged in, or the walk runs out of budget and the volume is breached.</li>
+ *     <li>Closing a block inside a volume runs one breadth first search from each of the (at most six) neighbours, interleaved. Searches
+ *     which meet are merged, and a search which runs out of positions first has found a separate, smaller component that is split off as its
+ *     own volume. This costs time proportional to the smaller side(s) of the split, not the whole volume.</li>
+ * </ul>
+ * Closing a block inside an <em>unsealed</em> volume may re-seal it, which can only be checked by walking it again from its origin.
+ * <p>
+ * Block changes are observed through {@link net.neoforged.neoforge.event.level.BlockEvent.NeighborNotifyEvent}, so changes made without
+ * neighbour updates are not seen. Trackers live only in memory, and volumes must be tracked again (for instance, by a vault door block
+ * entity) when a level is loaded.
+ */
+public class SealedVolumeTracker {
+    private static final Map<LevelAccessor, SealedVolumeTracker> TRACKERS = new IdentityHashMap<>();
+
+    /**
+     * Returns the tracker for a level, creating it if necessary.
+     *
+     * @param level The level.
+     * @return The tracker for that level.
+     */
+    public static SealedVolumeTracker get(ServerLevel level) {
+        return TRACKERS.computeIfAbsent(level, key -> new SealedVolumeTracker(level));
+    }
+
+    /**
+     * @param level The level.
+     * @return The tracker for the level, or {@code null} if no volumes have been tracked in it.
+     */
+    @Nullable
+    public static SealedVolumeTracker getIfPresent(LevelAccessor level) {
+        return TRACKERS.get(level);
+    }
+
+    /**
+     * Discards the tracker for a level, when the level is unloaded.
+     *
+     * @param level The level.
+     */
+    public static void remove(LevelAccessor level) {
+        TRACKERS.remove(level);
+    }
+
+    private final ServerLevel level;
+    private final Long2ObjectOpenHashMap<SealedVolume> volumesByPos = new Long2ObjectOpenHashMap<>();
+    private final Set<SealedVolume> volumes = new ReferenceOpenHashSet<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    private final FloodFill fill = new FloodFill();
+    private final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+
+    private SealedVolumeTracker(ServerLevel level) {
+        this.level = level;
+    }
+
+    /**
+     * Starts tracking the volume containing {@code origin}. If the position is already part of a tracked volume, that volume is returned.
+     *
+     * @param origin    A position inside the volume.
+     * @param maxVolume The largest number of blocks the volume may contain, and still count as sealed.
+     * @return The volume, or {@code null} if {@code origin} is itself airtight, or in an unloaded chunk.
+     */
+    @Nullable
+    public SealedVolume track(BlockPos origin, int maxVolume) {
+        final long start = origin.asLong();
+        final SealedVolume existing = volumesByPos.get(start);
+        if (existing != null) {
+            return existing;
+        }
+        final SealedVolume volume = new SealedVolume(start, maxVolume, new LongOpenHashSet(), new LongOpenHashSet(), false);
+        return walk(volume, start) ? volume : null;
+    }
+
+    /**
+     * Stops tracking a volume.
+     *
+     * @param volume The volume.
+     */
+    public void untrack(SealedVolume volume) {
+        if (volumes.remove(volume)) {
+            for (LongIterator it = volume.interior.iterator(); it.hasNext(); ) {
+                volumesByPos.remove(it.nextLong(), volume);
+            }
+        }
+    }
+
+    /**
+     * @param pos A position.
+     * @return The tracked volume containing {@code pos}, or {@code null} if there is none.
+     */
+    @Nullable
+    public SealedVolume getVolume(BlockPos pos) {
+        return volumesByPos.get(pos.asLong());
+    }
+
+    /**
+     * @param pos A position.
+     * @return {@code true} if {@code pos} lies inside a tracked, sealed volume.
+     */
+    public boolean isSealed(BlockPos pos) {
+        final SealedVolume volume = volumesByPos.get(pos.asLong());
+        return volume != null && volume.sealed;
+    }
+
+    /**
+     * @return All volumes tracked in this level.
+     */
+    public Collection<SealedVolume> getVolumes() {
+        return Collections.unmodifiableSet(volumes);
+    }
+
+    /**
+     * Adds a listener which is notified whenever a volume becomes sealed or unsealed, including when a sealed volume is split in two.
+     *
+     * @param listener The listener.
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Updates tracked volumes after the block at {@code pos} has changed to {@code state}.
+     *
+     * @param pos   The position which changed.
+     * @param state The new block state at that position.
+     */
+    public void onBlockChanged(BlockPos pos, BlockState state) {
+        final long key = pos.asLong();
+        final boolean passable = !BlockHelpers.isAirtight(level, pos, state);
+        final SealedVolume owner = volumesByPos.get(key);
+        if (owner != null) {
+            if (!passable) {
+                onClosed(owner, key);
+            }
+            return;
+        }
+        if (passable) {
+            // Only volumes which border this position can be affected. Collect them first, as opening may merge them together.
+            final SealedVolume[] neighbours = new SealedVolume[6];
+            int count = 0;
+            for (int i = 0; i < 6; i++) {
+                final SealedVolume neighbour = volumesByPos.get(PackedPosHelpers.relative(key, i));
+                if (neighbour != null && !contains(neighbours, count, neighbour)) {
+                    neighbours[count++] = neighbour;
+                }
+            }
+            if (count > 0) {
+                // Prefer opening into a sealed volume, as that walks the newly connected region, and will absorb the others if it reaches them
+                int first = 0;
+                for (int i = 1; i < count; i++) {
+                    if (neighbours[i].sealed && !neighbours[first].sealed) {
+                        first = i;
+                    }
+                }
+                onOpened(neighbours[first], key);
+                final SealedVolume merged = volumesByPos.get(key);
+                for (int i = 0; i < count; i++) {
+                    if (merged != null && neighbours[i] != merged && volumes.contains(neighbours[i])) {
+                        final boolean otherSealed = absorb(merged, neighbours[i]);
+                        setSealed(merged, merged.sealed && otherSealed);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A previously airtight block bordering {@code volume} is no longer airtight.
+     */
+    private void onOpened(SealedVolume volume, long pos) {
+        volume.boundary.remove(pos);
+        if (!volume.sealed) {
+            // The walked region of an unsealed volume is only a lower bound anyway, so just grow it by this position
+            claim(volume, pos);
+            return;
+        }
+
+        fill.withNodeLimit(volume.maxVolume - volume.size());
+        final FloodFill.Outcome outcome = fill.fill(new CachedSectionReader(level), pos, (p, s) -> !volume.interior.contains(p) && isPassable(p, s));
+        boolean sealed = outcome == FloodFill.Outcome.COMPLETE && !fill.touchedUnloaded();
+
+        // The walk may have run into other tracked volumes (for instance, knocking through the wall between two rooms), which are absorbed
+        final Set<SealedVolume> absorbed = new ReferenceOpenHashSet<>();
+        for (LongIterator it = fill.visited().iterator(); it.hasNext(); ) {
+            final SealedVolume other = volumesByPos.get(it.nextLong());
+            if (other != null && other != volume) {
+                absorbed.add(other);
+            }
+        }
+        for (SealedVolume other : absorbed) {
+            sealed &= absorb(volume, other);
+        }
+        for (LongIterator it = fill.visited().iterator(); it.hasNext(); ) {
+            claim(volume, it.nextLong());
+        }
+        for (LongIterator it = fill.boundary().iterator(); it.hasNext(); ) {
+            final long boundaryPos = it.nextLong();
+            if (!volume.interior.contains(boundaryPos)) {
+                volume.boundary.add(boundaryPos);
+            }
+        }
+        if (volume.size() > volume.maxVolume) {
+            sealed = false;
+        }
+        setSealed(volume, sealed);
+    }
+
+    /**
+     * A previously open position inside {@code volume} has become airtight.
+     */
+    private void onClosed(SealedVolume volume, long pos) {
+        volume.interior.remove(pos);
+        volumesByPos.remove(pos);
+        if (volume.interior.isEmpty()) {
+            untrack(volume);
+            setSealed(volume, false);
+            return;
+        }
+        if (!volume.sealed) {
+            // This might have closed the breach, which can only be found by walking the volume again
+            final long start = volume.interior.contains(volume.origin) ? volume.origin : volume.interior.iterator().nextLong();
+            walk(volume, start);
+            return;
+        }
+
+        volume.boundary.add(pos);
+        final long[] seeds = new long[6];
+        int count = 0;
+        for (int i = 0; i < 6; i++) {
+            final long neighbour = PackedPosHelpers.relative(pos, i);
+            if (volume.interior.contains(neighbour)) {
+                seeds[count++] = neighbour;
+            } else {
+                removeStaleBoundary(volume, neighbour);
+            }
+        }
+        split(volume, seeds, count);
+    }
+
+    /**
+     * Searches outwards from each seed, one position per search at a time, until all searches have either met, or run out of positions.
+     * Any group of searches which runs out of positions before meeting the rest has found a disconnected component, which is split off.
+     */
+    private void split(SealedVolume volume, long[] seeds, int count) {
+        if (count <= 1) {
+            return;
+        }
+        final int[] parent = new int[count];
+        final boolean[] exhausted = new boolean[count];
+        final LongArrayFIFOQueue[] queues = new LongArrayFIFOQueue[count];
+        final Long2IntOpenHashMap owners = new Long2IntOpenHashMap();
+        owners.defaultReturnValue(-1);
+        for (int i = 0; i < count; i++) {
+            parent[i] = i;
+            queues[i] = new LongArrayFIFOQueue();
+            queues[i].enqueue(seeds[i]);
+            owners.put(seeds[i], i);
+        }
+
+        int groups = count;
+        while (groups > 1) {
+            for (int i = 0; i < count && groups > 1; i++) {
+                final int root = find(parent, i);
+                if (exhausted[root]) {
+                    continue;
+                }
+                if (queues[i].isEmpty()) {
+                    if (isGroupEmpty(parent, queues, root)) {
+                        exhausted[root] = true;
+                        groups--;
+                        detach(volume, owners, parent, root);
+                    }
+                    continue;
+                }
+                final long current = queues[i].dequeueLong();
+                for (int direction = 0; direction < 6; direction++) {
+                    final long neighbour = PackedPosHelpers.relative(current, direction);
+                    if (!volume.interior.contains(neighbour)) {
+                        continue;
+                    }
+                    final int owner = owners.get(neighbour);
+                    if (owner == -1) {
+                        owners.put(neighbour, i);
+                        queues[i].enqueue(neighbour);
+                    } else {
+                        final int ownerRoot = find(parent, owner), ourRoot = find(parent, i);
+                        if (ownerRoot != ourRoot) {
+                            parent[ownerRoot] = ourRoot;
+                            groups--;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves every position found by the searches in the group {@code root} out of {@code volume}, and into a new, sealed volume.
+     */
+    private void detach(SealedVolume volume, Long2IntOpenHashMap owners, int[] parent, int root) {
+        final LongOpenHashSet interior = new LongOpenHashSet();
+        for (Long2IntMap.Entry entry : owners.long2IntEntrySet()) {
+            if (find(parent, entry.getIntValue()) == root) {
+                interior.add(entry.getLongKey());
+            }
+        }
+        final LongOpenHashSet boundary = new LongOpenHashSet();
+        for (LongIterator it = interior.iterator(); it.hasNext(); ) {
+            final long pos = it.nextLong();
+            for (int direction = 0; direction < 6; direction++) {
+                final long neighbour = PackedPosHelpers.relative(pos, direction);
+                if (!interior.contains(neighbour)) {
+                    boundary.add(neighbour);
+                }
+            }
+        }
+
+        final long origin = interior.contains(volume.origin) ? volume.origin : interior.iterator().nextLong();
+        final SealedVolume detached = new SealedVolume(origin, volume.maxVolume, interior, boundary, true);
+        volume.interior.removeAll(interior);
+        if (origin == volume.origin) {
+            volume.origin = volume.interior.iterator().nextLong();
+        }
+        for (LongIterator it = interior.iterator(); it.hasNext(); ) {
+            volumesByPos.put(it.nextLong(), detached);
+        }
+        for (LongIterator it = boundary.iterator(); it.hasNext(); ) {
+            removeStaleBoundary(volume, it.nextLong());
+        }
+        volumes.add(detached);
+        listeners.forEach(listener -> listener.onSealChanged(detached, true));
+    }
+
+    /**
+     * Re-walks {@code volume} from scratch, starting at {@code start}, replacing its interior and boundary.
+     *
+     * @return {@code false} if the start position was not passable, in which case the volume is no longer tracked.
+     */
+    private boolean walk(SealedVolume volume, long start) {
+        untrack(volume);
+        volume.interior.clear();
+        volume.boundary.clear();
+
+        fill.withNodeLimit(volume.maxVolume);
+        final FloodFill.Outcome outcome = fill.fill(new CachedSectionReader(level), start, this::isPassable);
+        if (fill.visited().isEmpty()) {
+            setSealed(volume, false);
+            return false;
+        }
+
+        // Any volume overlapping the walked region is part of the same region, and so is replaced by this one
+        final Set<SealedVolume> replaced = new ReferenceOpenHashSet<>();
+        for (LongIterator it = fill.visited().iterator(); it.hasNext(); ) {
+            final SealedVolume other = volumesByPos.get(it.nextLong());
+            if (other != null) {
+                replaced.add(other);
+            }
+        }
+        for (SealedVolume other : replaced) {
+            untrack(other);
+            setSealed(other, false);
+        }
+
+        volume.origin = start;
+        volume.interior.addAll(fill.visited());
+        volume.boundary.addAll(fill.boundary());
+        for (LongIterator it = volume.interior.iterator(); it.hasNext(); ) {
+            volumesByPos.put(it.nextLong(), volume);
+        }
+        volumes.add(volume);
+        setSealed(volume, outcome == FloodFill.Outcome.COMPLETE && !fill.touchedUnloaded());
+        return true;
+    }
+
+    /**
+     * Merges {@code other} into {@code volume}, and stops tracking it.
+     *
+     * @return {@code true} if {@code other} was sealed.
+     */
+    private boolean absorb(SealedVolume volume, SealedVolume other) {
+        final boolean wasSealed = other.sealed;
+        untrack(other);
+        for (LongIterator it = other.interior.iterator(); it.hasNext(); ) {
+            claim(volume, it.nextLong());
+        }
+        volume.boundary.addAll(other.boundary);
+        setSealed(other, false);
+        return wasSealed;
+    }
+
+    private void claim(SealedVolume volume, long pos) {
+        volume.interior.add(pos);
+        volumesByPos.put(pos, volume);
+    }
+
+    /**
+     * Removes {@code pos} from the boundary of {@code volume}, if it no longer borders any position inside it.
+     */
+    private void removeStaleBoundary(SealedVolume volume, long pos) {
+        if (volume.boundary.contains(pos)) {
+            for (int direction = 0; direction < 6; direction++) {
+                if (volume.interior.contains(PackedPosHelpers.relative(pos, direction))) {
+                    return;
+                }
+            }
+            volume.boundary.remove(pos);
+        }
+    }
+
+    private void setSealed(SealedVolume volume, boolean sealed) {
+        if (volume.sealed != sealed) {
+            volume.sealed = sealed;
+            listeners.forEach(listener -> listener.onSealChanged(volume, sealed));
+        }
+    }
+
+    private boolean isPassable(long pos, BlockState state) {
+        return !BlockHelpers.isAirtight(level, cursor.set(pos), state);
+    }
+
+    private static boolean contains(SealedVolume[] volumes, int count, SealedVolume volume) {
+        for (int i = 0; i < count; i++) {
+            if (volumes[i] == volume) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isGroupEmpty(int[] parent, LongArrayFIFOQueue[] queues, int root) {
+        for (int i = 0; i < queues.length; i++) {
+            if (find(parent, i) == root && !queues[i].isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * Listens for changes to whether tracked volumes are sealed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param volume The volume which changed.
+         * @param sealed {@code true} if the volume is now sealed, {@code false} if it has been breached or removed.
+         */
+        void onSealChanged(SealedVolume volume, boolean sealed);
+    }
+}
@@ -0,0 +1,63 @@
+package dev.cassis2310.falloutmc.mixins;
+
+import com.llamalad7.mixinextras.injector.WrapWithCondition;
+import dev.cassis2310.falloutmc.common.entities.AiLevelOfDetail;
+import dev.cassis2310.falloutmc.common.entities.AiLevelOfDetailHolder;
+import net.minecraft.world.entity.Mob;
+import net.minecraft.world.entity.ai.goal.GoalSelector;
+import net.minecraft.world.entity.ai.sensing.Sensing;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * Skips sensing and goal selection on the ticks {@link AiLevelOfDetail} leaves out. Navigation and controls are left alone, so mobs keep
+ * moving smoothly between decisions.
+ */
+@Mixin(Mob.class)
+public abstract class MobMixin implements AiLevelOfDetailHolder {
+    @Unique
+    private int falloutmc$aiTier = AiLevelOfDetail.UNKNOWN;
+    @Unique
+    private long falloutmc$aiTierTime;
+    @Unique
+    private boolean falloutmc$tickAi = true;
+
+    @Inject(method = "serverAiStep", at = @At("HEAD"))
+    private void falloutmc$checkAiLevelOfDetail(CallbackInfo ci) {
+        falloutmc$tickAi = AiLevelOfDetail.shouldTickAi((Mob) (Object) this);
+    }
+
+    @WrapWithCondition(method = "serverAiStep", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/entity/ai/sensing/Sensing;tick()V"))
+    private boolean falloutmc$tickSensing(Sensing sensing) {
+        return falloutmc$tickAi;
+    }
+
+    @WrapWithCondition(method = "serverAiStep", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/entity/ai/goal/GoalSelector;tick()V"))
+    private boolean falloutmc$tickGoals(GoalSelector selector) {
+        return falloutmc$tickAi;
+    }
+
+    @WrapWithCondition(method = "serverAiStep", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/entity/ai/goal/GoalSelector;tickRunningGoals(Z)V"))
+    private boolean falloutmc$tickRunningGoals(GoalSelector selector, boolean tickAllRunning) {
+        return falloutmc$tickAi;
+    }
+
+    @Override
+    public int falloutmc$getAiTier() {
+        return falloutmc$aiTier;
+    }
+
+    @Override
+    public long falloutmc$getAiTierTime() {
+        return falloutmc$aiTierTime;
+    }
+
+    @Override
+    public void falloutmc$setAiTier(int tier, long time) {
+        falloutmc$aiTier = tier;
+        falloutmc$aiTierTime = time;
+    }
+}
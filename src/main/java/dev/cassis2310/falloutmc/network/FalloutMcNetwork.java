@@ -0,0 +1,17 @@
+package dev.cassis2310.falloutmc.network;
+
+import dev.cassis2310.falloutmc.client.ClientRadiationCache;
+import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
+import net.neoforged.neoforge.network.registration.PayloadRegistrar;
+
+public class FalloutMcNetwork {
+    public static final String VERSION = "1";
+
+    /**
+     * Registers every payload sent by the mod. Listens on the mod event bus.
+     */
+    public static void registerPayloads(RegisterPayloadHandlersEvent event) {
+        final PayloadRegistrar registrar = event.registrar(VERSION);
+        registrar.playToClient(RadiationSyncPayload.TYPE, RadiationSyncPayload.STREAM_CODEC, ClientRadiationCache::handle);
+    }
+}
@@ -0,0 +1,80 @@
+package dev.cassis2310.falloutmc.network;
+
+import dev.cassis2310.falloutmc.common.radiation.RadiationSectionCodec;
+import dev.cassis2310.falloutmc.util.resources.ResourceLocationHelpers;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Radiation updates for one player in one tick. Updates which would not fit in {@link #MAX_SIZE} are split across several payloads.
+ *
+ * @param center   The packed section position the player was in. The client discards any sections further than {@code distance} from it.
+ * @param distance The distance, in sections, around {@code center} which the server keeps the client up to date with.
+ * @param sections The updated sections.
+ */
+public record RadiationSyncPayload(long center, int distance, List<Section> sections) implements CustomPacketPayload {
+    /**
+     * The largest {@link #size()} a payload is allowed to grow to, well under the limit on clientbound custom payloads.
+     */
+    public static final int MAX_SIZE = 512 * 1024;
+    public static final int HEADER_SIZE = 8 + 5 + 5;
+
+    public static final Type<RadiationSyncPayload> TYPE = new Type<>(ResourceLocationHelpers.identifier("radiation_sync"));
+    public static final StreamCodec<FriendlyByteBuf, RadiationSyncPayload> STREAM_CODEC = StreamCodec.ofMember(RadiationSyncPayload::write, RadiationSyncPayload::read);
+
+    private static RadiationSyncPayload read(FriendlyByteBuf buffer) {
+        final long center = buffer.readLong();
+        final int distance = buffer.readVarInt();
+        final int count = buffer.readVarInt();
+        final List<Section> sections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sections.add(new Section(buffer.readLong(), buffer.readByteArray()));
+        }
+        return new RadiationSyncPayload(center, distance, sections);
+    }
+
+    private void write(FriendlyByteBuf buffer) {
+        buffer.writeLong(center);
+        buffer.writeVarInt(distance);
+        buffer.writeVarInt(sections.size());
+        for (Section section : sections) {
+            buffer.writeLong(section.pos());
+            buffer.writeByteArray(section.data());
+        }
+    }
+
+    /**
+     * @return The approximate size of this payload on the wire, in bytes.
+     */
+    public int size() {
+        int size = HEADER_SIZE;
+        for (Section section : sections) {
+            size += section.size();
+        }
+        return size;
+    }
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+
+    /**
+     * One updated section.
+     *
+     * @param pos  The packed section position.
+     * @param data The section, encoded by {@link RadiationSectionCodec}. This may be shared between the payloads of several players.
+     */
+    public record Section(long pos, byte[] data) {
+        /**
+         * @return The approximate size of this section on the wire, in bytes.
+         */
+        public int size() {
+            return 8 + 5 + data.length;
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package dev.cassis2310.falloutmc.util.blocks;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import dev.cassis2310.falloutmc.common.FalloutMcTags;
 import dev.cassis2310.falloutmc.util.lists.RandomHelpers;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.core.Holder;
@@ -11,6 +17,7 @@ import net.minecraft.world.entity.Entity;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.item.ItemEntity;
 import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.BlockGetter;
 import net.minecraft.world.level.GameRules;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.LevelAccessor;
@@ -18,6 +25,7 @@ import net.minecraft.world.level.block.BaseFireBlock;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.state.StateDefinition;
 import net.minecraft.world.level.block.state.properties.Property;
 import net.minecraft.world.level.material.Fluid;
 import net.minecraft.world.level.material.FluidState;
@@ -26,12 +34,79 @@ import net.minecraft.world.level.storage.loot.parameters.LootContextParams;
 import net.minecraft.world.phys.Vec3;
 import net.minecraft.world.phys.shapes.VoxelShape;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
 public class BlockHelpers {
+    private static final LoadingCache<BlockPair, ConversionTable> CONVERSION_TABLES = CacheBuilder.newBuilder()
+        .maximumSize(1024)
+        .build(CacheLoader.from(ConversionTable::new));
+
+    /**
+     * Converts a state of one block into the equivalent state of another, keeping every property the two blocks share. This gives the same
+     * result as {@code copyProperties(to.defaultBlockState(), state)}, but is much faster when converting many blocks.
+     * <p>
+     * The first conversion between two blocks builds a table of the converted state for every state of the source block, indexed by the
+     * state's {@linkplain #getStatePositions(Block) position}. Every later conversion between those blocks is a cache lookup, a lookup of
+     * the state's position, and an array read, with no property lookups. Tables are cached for the most recently used block pairs, and
+     * are safe to use from any thread.
+     *
+     * @param state The state to convert.
+     * @param to    The block to convert to.
+     * @return The converted state.
+     */
+    public static BlockState convertState(BlockState state, Block to) {
+        final Block from = state.getBlock();
+        if (from == to) {
+            return state;
+        }
+        return CONVERSION_TABLES.getUnchecked(new BlockPair(from, to)).convert(state);
+    }
+
+    /**
+     * Returns the position of each state of a block in {@link StateDefinition#getPossibleStates()}. Unlike state ids, which are only
+     * assigned once every block is registered, and are reassigned when registries are synced, positions are fixed when the block is
+     * created, so they can safely index tables which are built once and kept.
+     *
+     * @param block The block.
+     * @return A new map from each state of the block to its position. Any other state maps to {@code -1}.
+     */
+    public static Reference2IntMap<BlockState> getStatePositions(Block block) {
+        final List<BlockState> states = block.getStateDefinition().getPossibleStates();
+        final Reference2IntOpenHashMap<BlockState> positions = new Reference2IntOpenHashMap<>(states.size());
+        positions.defaultReturnValue(-1);
+        for (int i = 0; i < states.size(); i++) {
+            positions.put(states.get(i), i);
+        }
+        return positions;
+    }
+
+    /**
+     * Blocks do not override {@code equals}, so pairs are compared by identity.
+     */
+    private record BlockPair(Block from, Block to) {}
+
+    private static final class ConversionTable {
+        private final Reference2IntMap<BlockState> positions;
+        private final BlockState[] converted;
+
+        ConversionTable(BlockPair pair) {
+            final List<BlockState> states = pair.from().getStateDefinition().getPossibleStates();
+            positions = getStatePositions(pair.from());
+            converted = new BlockState[states.size()];
+            for (int i = 0; i < converted.length; i++) {
+                converted[i] = copyProperties(pair.to().defaultBlockState(), states.get(i));
+            }
+        }
+
+        BlockState convert(BlockState state) {
+            return converted[positions.getInt(state)];
+        }
+    }
+
     /**
      * Copies the properties from one BlockState to another.
      * This method allows for transferring all properties from the source BlockState to the target BlockState.
@@ -154,7 +229,8 @@ public class BlockHelpers {
     }
 
     /**
-     * Rotates a VoxelShape by 90 degrees around the specified axis.
+     * Rotates a VoxelShape by 90 degrees around the specified axis. The shape is {@linkplain ShapeRegistry#intern(VoxelShape) interned}, so
+     * repeated calls with the same box return the same instance.
      *
      * @param direction the direction of rotation (must be NORTH, EAST, SOUTH, or WEST).
      * @param x1        the minimum x-coordinate of the shape.
@@ -168,30 +244,45 @@ public class BlockHelpers {
      */
     public static VoxelShape rotateShape(Direction direction, double x1, double y1, double z1, double x2, double y2, double z2) {
         return switch (direction) {
-            case NORTH -> Block.box(x1, y1, z1, x2, y2, z2);
-            case EAST -> Block.box(16 - z2, y1, x1, 16 - z1, y2, x2);
-            case SOUTH -> Block.box(16 - x2, y1, 16 - z2, 16 - x1, y2, 16 - z1);
-            case WEST -> Block.box(z1, y1, 16 - x2, z2, y2, 16 - x1);
+            case NORTH -> ShapeRegistry.box(x1, y1, z1, x2, y2, z2);
+            case EAST -> ShapeRegistry.box(16 - z2, y1, x1, 16 - z1, y2, x2);
+            case SOUTH -> ShapeRegistry.box(16 - x2, y1, 16 - z2, 16 - x1, y2, 16 - z1);
+            case WEST -> ShapeRegistry.box(z1, y1, 16 - x2, z2, y2, 16 - x1);
             default -> throw new IllegalArgumentException("Not Horizontal!");
         };
     }
 
     /**
      * Computes the horizontal shapes for a given shape getter function.
-     * Follows indexes for {@link Direction#get2DDataValue()}.
+     * Follows indexes for {@link Direction#get2DDataValue()}. The shapes are {@linkplain ShapeRegistry#intern(VoxelShape) interned}, so
+     * blocks with the same shapes share the same instances. Where the shapes are rotations of a single shape, prefer
+     * {@link ShapeRegistry#horizontalRotations(VoxelShape)}, which computes them only once.
      *
      * @param shapeGetter a function that returns a shape for a given direction.
      * @return an array of shapes for the four horizontal directions (SOUTH, WEST, NORTH, EAST).
      */
     public static VoxelShape[] computeHorizontalShapes(Function<Direction, VoxelShape> shapeGetter) {
         return new VoxelShape[]{
-                shapeGetter.apply(Direction.SOUTH),
-                shapeGetter.apply(Direction.WEST),
-                shapeGetter.apply(Direction.NORTH),
-                shapeGetter.apply(Direction.EAST)
+                ShapeRegistry.intern(shapeGetter.apply(Direction.SOUTH)),
+                ShapeRegistry.intern(shapeGetter.apply(Direction.WEST)),
+                ShapeRegistry.intern(shapeGetter.apply(Direction.NORTH)),
+                ShapeRegistry.intern(shapeGetter.apply(Direction.EAST))
         };
     }
 
+    /**
+     * Checks if a block is airtight, that is, if air cannot pass through it. This is the case for blocks with a full collision shape,
+     * and for blocks in the {@link FalloutMcTags.Blocks#AIRTIGHT} tag.
+     *
+     * @param level The level the block is in.
+     * @param pos   The position of the block.
+     * @param state The block state at that position.
+     * @return true if the block is airtight, false otherwise
+     */
+    public static boolean isAirtight(BlockGetter level, BlockPos pos, BlockState state) {
+        return state.is(FalloutMcTags.Blocks.AIRTIGHT) || state.isCollisionShapeFullBlock(level, pos);
+    }
+
     /**
      * Checks if the given BlockState matches the specified Block.
      *
@@ -0,0 +1,198 @@
+package dev.cassis2310.falloutmc.util.blocks;
+
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.AABB;
+import net.minecraft.world.phys.shapes.Shapes;
+import net.minecraft.world.phys.shapes.VoxelShape;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Interns {@link VoxelShape}s, so that every block with the same shape shares a single, optimised instance.
+ * <p>
+ * Shapes are identified by their boxes, with coordinates rounded to {@code 1/4096} of a block and the boxes sorted, so equal shapes built
+ * in different ways (or different orders) intern to the same instance. Interned shapes are {@linkplain VoxelShape#optimize() optimised}
+ * once, which makes the collision and occlusion joins done with them cheaper. The four horizontal rotations of a shape are computed once and
+ * cached with it.
+ * <p>
+ * {@link StateShapes} build on this to replace per-call shape computations with a table, built once per block.
+ * <p>
+ * All methods are thread safe.
+ */
+public class ShapeRegistry {
+    private static final double PRECISION = 4096;
+
+    private static final ConcurrentHashMap<ShapeKey, VoxelShape> SHAPES = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<ShapeKey, VoxelShape[]> ROTATIONS = new ConcurrentHashMap<>();
+    private static final AtomicLong REQUESTS = new AtomicLong();
+
+    /**
+     * Creates an interned box, with coordinates in sixteenths of a block, as in {@link Block#box}.
+     */
+    public static VoxelShape box(double x1, double y1, double z1, double x2, double y2, double z2) {
+        return intern(Block.box(x1, y1, z1, x2, y2, z2));
+    }
+
+    /**
+     * Returns the interned instance of a shape.
+     *
+     * @param shape The shape.
+     * @return A shape with the same boxes, which is shared with every other shape interned with the same boxes.
+     */
+    public static VoxelShape intern(VoxelShape shape) {
+        REQUESTS.incrementAndGet();
+        final ShapeKey key = ShapeKey.of(shape);
+        final VoxelShape existing = SHAPES.get(key);
+        return existing != null ? existing : SHAPES.computeIfAbsent(key, k -> shape.optimize());
+    }
+
+    /**
+     * Returns all four horizontal rotations of a shape, which is given facing north.
+     *
+     * @param north The shape, facing north.
+     * @return Interned shapes, indexed by {@link Direction#get2DDataValue()}. The array is shared, and must not be modified.
+     */
+    public static VoxelShape[] horizontalRotations(VoxelShape north) {
+        return ROTATIONS.computeIfAbsent(ShapeKey.of(north), key -> {
+            final VoxelShape[] shapes = new VoxelShape[4];
+            for (Direction direction : Direction.Plane.HORIZONTAL) {
+                shapes[direction.get2DDataValue()] = rotate(north, direction);
+            }
+            return shapes;
+        });
+    }
+
+    /**
+     * Returns a shape, which is given facing north, rotated to face a horizontal direction.
+     *
+     * @param north     The shape, facing north.
+     * @param direction The horizontal direction to face.
+     * @return The interned, rotated shape.
+     * @throws IllegalArgumentException if the direction is not horizontal.
+     */
+    public static VoxelShape rotate(VoxelShape north, Direction direction) {
+        if (direction.getAxis().isVertical()) {
+            throw new IllegalArgumentException("Not Horizontal!");
+        }
+        VoxelShape rotated = Shapes.empty();
+        for (AABB box : north.toAabbs()) {
+            final VoxelShape part = switch (direction) {
+                case EAST -> Shapes.box(1 - box.maxZ, box.minY, box.minX, 1 - box.minZ, box.maxY, box.maxX);
+                case SOUTH -> Shapes.box(1 - box.maxX, box.minY, 1 - box.maxZ, 1 - box.minX, box.maxY, 1 - box.minZ);
+                case WEST -> Shapes.box(box.minZ, box.minY, 1 - box.maxX, box.maxZ, box.maxY, 1 - box.minX);
+                default -> Shapes.box(box.minX, box.minY, box.minZ, box.maxX, box.maxY, box.maxZ);
+            };
+            rotated = Shapes.or(rotated, part);
+        }
+        return intern(rotated);
+    }
+
+    /**
+     * @return The number of shapes which have been interned, and the number of distinct shapes kept, for measuring how much duplication
+     * interning has removed.
+     */
+    public static Stats getStats() {
+        return new Stats(REQUESTS.get(), SHAPES.size());
+    }
+
+    /**
+     * @param requests The number of calls to {@link #intern(VoxelShape)}, including those made by other methods.
+     * @param unique   The number of distinct shapes kept.
+     */
+    public record Stats(long requests, int unique) {}
+
+    /**
+     * The rounded, sorted box coordinates of a shape.
+     */
+    private record ShapeKey(int[] coordinates) {
+        static ShapeKey of(VoxelShape shape) {
+            final List<AABB> boxes = shape.toAabbs();
+            final int[][] rounded = new int[boxes.size()][];
+            for (int i = 0; i < rounded.length; i++) {
+                final AABB box = boxes.get(i);
+                rounded[i] = new int[] {round(box.minX), round(box.minY), round(box.minZ), round(box.maxX), round(box.maxY), round(box.maxZ)};
+            }
+            Arrays.sort(rounded, Arrays::compare);
+            final int[] coordinates = new int[rounded.length * 6];
+            for (int i = 0; i < rounded.length; i++) {
+                System.arraycopy(rounded[i], 0, coordinates, i * 6, 6);
+            }
+            return new ShapeKey(coordinates);
+        }
+
+        private static int round(double value) {
+            return (int) Math.round(value * PRECISION);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof ShapeKey other && Arrays.equals(coordinates, other.coordinates);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(coordinates);
+        }
+    }
+
+    /**
+     * A table of shapes for every state of a block, so looking up a state's shape is a lookup of the state's
+     * {@linkplain BlockHelpers#getStatePositions(Block) position} and an array read.
+     * <p>
+     * The table is indexed by position rather than by state id, as ids are only assigned once every block has been registered, and can
+     * change when registries are synced. It is built the first time it is used, rather than when it is created, so it can be created in a
+     * block's constructor before the fields the shape getter depends on are set, and used from {@code getShape}.
+     */
+    public static class StateShapes {
+        private final Block block;
+        private final Function<BlockState, VoxelShape> shapeGetter;
+        private volatile Table table;
+
+        /**
+         * @param block       The block.
+         * @param shapeGetter Computes the shape for a state of the block. Called once per state, and the results are interned.
+         */
+        public StateShapes(Block block, Function<BlockState, VoxelShape> shapeGetter) {
+            this.block = block;
+            this.shapeGetter = shapeGetter;
+        }
+
+        /**
+         * @param state A state of the block.
+         * @return The interned shape for the state.
+         * @throws IllegalArgumentException if the state is not a state of the block.
+         */
+        public VoxelShape get(BlockState state) {
+            Table table = this.table;
+            if (table == null) {
+                table = build();
+            }
+            final int position = table.positions().getInt(state);
+            if (position == -1) {
+                throw new IllegalArgumentException("Not a state of " + block + ": " + state);
+            }
+            return table.shapes()[position];
+        }
+
+        private synchronized Table build() {
+            if (table != null) {
+                return table;
+            }
+            final List<BlockState> states = block.getStateDefinition().getPossibleStates();
+            final VoxelShape[] shapes = new VoxelShape[states.size()];
+            for (int i = 0; i < shapes.length; i++) {
+                shapes[i] = intern(shapeGetter.apply(states.get(i)));
+            }
+            return table = new Table(BlockHelpers.getStatePositions(block), shapes);
+        }
+
+        private record Table(Reference2IntMap<BlockState> positions, VoxelShape[] shapes) {}
+    }
+}
@@ -1,6 +1,9 @@
 package dev.cassis2310.falloutmc.util.capabilities;
 
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntity;
@@ -8,11 +11,16 @@ import net.neoforged.neoforge.capabilities.BlockCapability;
 import net.neoforged.neoforge.capabilities.ItemCapability;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 public class CapabilityHelpers {
+    private static final Map<ItemCapability<?, Void>, Map<Item, Boolean>> ITEM_CAPABILITY_CACHE = new ConcurrentHashMap<>();
 
     /**
      * Retrieves the capability for a block at a given position in a level.
      * This is useful for interacting with blocks that have capabilities such as inventories or fluid tanks.
+     * This looks up the capability on every call, so for neighbours which are queried every tick, use a {@link NeighbourCapabilityCache}.
      *
      * @param capability The capability to retrieve.
      * @param level      The level (world) where the block is located.
@@ -26,6 +34,22 @@ public class CapabilityHelpers {
         return level.getCapability(capability, pos, null);
     }
 
+    /**
+     * Retrieves the capability for a block at a given position in a level, with an additional context, such as the side it is accessed from.
+     *
+     * @param capability The capability to retrieve.
+     * @param level      The level (world) where the block is located.
+     * @param pos        The position of the block.
+     * @param context    The context for the capability.
+     * @param <T>        The type of the capability.
+     * @param <C>        The type of the context.
+     * @return The capability, or null if not available.
+     */
+    @Nullable
+    public static <T, C> T getCapability(BlockCapability<T, C> capability, Level level, BlockPos pos, C context) {
+        return level.getCapability(capability, pos, context);
+    }
+
     /**
      * Retrieves the capability for a block entity.
      * This method is particularly useful when working with custom block entities that expose capabilities.
@@ -58,9 +82,31 @@ public class CapabilityHelpers {
         return entity.getLevel().getCapability(capability, entity.getBlockPos(), entity.getBlockState(), entity, context);
     }
 
+    /**
+     * Creates a cache of a capability on each neighbour of a block entity, for block entities which query their neighbours often.
+     * This should be called from {@code BlockEntity#onLoad}, and the cache stops updating once the block entity is removed.
+     *
+     * @param capability   The capability to cache.
+     * @param entity       The block entity, which must be in a level.
+     * @param onInvalidate Called whenever a neighbour's capability may have changed.
+     * @param <T>          The type of the capability.
+     * @return The cache, or null if the block entity is not in a server level.
+     */
+    @Nullable
+    public static <T> NeighbourCapabilityCache<T> createNeighbourCache(BlockCapability<T, @Nullable Direction> capability, BlockEntity entity, Runnable onInvalidate) {
+        if (entity.getLevel() instanceof ServerLevel level) {
+            return new NeighbourCapabilityCache<>(capability, level, entity.getBlockPos(), () -> !entity.isRemoved(), onInvalidate);
+        }
+        return null;
+    }
+
     /**
      * Determines if an ItemStack might have a capability, either by already possessing it or by simulating a stack size of 1.
      * This is useful for containers and inventories that need to ensure an item can perform certain actions, like heating.
+     * <p>
+     * The answer for stacks with only their item's default components depends only on the item, so it is cached per item, and repeated
+     * checks of such stacks neither copy the stack nor allocate. Stacks with modified components are checked directly every time.
+     * The cache is cleared by {@link #clearCapabilityCache()}.
      *
      * @param stack      The ItemStack to check.
      * @param capability The capability to check for.
@@ -68,6 +114,30 @@ public class CapabilityHelpers {
      * @return True if the stack might have the capability, otherwise false.
      */
     public static <T> boolean mightHaveCapability(ItemStack stack, ItemCapability<T, Void> capability) {
-        return stack.copyWithCount(1).getCapability(capability) != null;
+        if (stack.isEmpty()) {
+            return false;
+        }
+        if (!stack.isComponentsPatchEmpty()) {
+            return stack.copyWithCount(1).getCapability(capability) != null;
+        }
+        Map<Item, Boolean> cache = ITEM_CAPABILITY_CACHE.get(capability);
+        if (cache == null) {
+            cache = ITEM_CAPABILITY_CACHE.computeIfAbsent(capability, key -> new ConcurrentHashMap<>());
+        }
+        final Boolean cached = cache.get(stack.getItem());
+        if (cached != null) {
+            return cached;
+        }
+        final boolean result = stack.copyWithCount(1).getCapability(capability) != null;
+        cache.put(stack.getItem(), result);
+        return result;
+    }
+
+    /**
+     * Clears the cache used by {@link #mightHaveCapability(ItemStack, ItemCapability)}, when tags or other data which capability providers
+     * may depend on are reloaded.
+     */
+    public static void clearCapabilityCache() {
+        ITEM_CAPABILITY_CACHE.clear();
     }
 }
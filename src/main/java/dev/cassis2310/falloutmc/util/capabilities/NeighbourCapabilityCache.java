@@ -0,0 +1,62 @@
+package dev.cassis2310.falloutmc.util.capabilities;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.server.level.ServerLevel;
+import net.neoforged.neoforge.capabilities.BlockCapability;
+import net.neoforged.neoforge.capabilities.BlockCapabilityCache;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Caches a block capability of each of the six neighbours of a position, as seen from that position. This is meant for block entities
+ * (pipes, cables, machines) which look at their neighbours' capabilities every tick.
+ * <p>
+ * Each side is backed by a {@link BlockCapabilityCache}, created the first time that side is asked for. The cache is invalidated by
+ * NeoForge whenever the capability of the neighbour may have changed, so asking for a side which has not changed costs a field read,
+ * instead of the block entity lookup and provider dispatch of {@link CapabilityHelpers#getCapability}.
+ * <p>
+ * Create one in {@code BlockEntity#onLoad}, once the level is known, via
+ * {@link CapabilityHelpers#createNeighbourCache(BlockCapability, net.minecraft.world.level.block.entity.BlockEntity, Runnable)}. Only server
+ * levels support capability caches.
+ *
+ * @param <T> The type of the capability.
+ */
+public class NeighbourCapabilityCache<T> {
+    private final BlockCapability<T, @Nullable Direction> capability;
+    private final ServerLevel level;
+    private final BlockPos pos;
+    private final BooleanSupplier isValid;
+    private final Runnable onInvalidate;
+    @SuppressWarnings("unchecked")
+    private final BlockCapabilityCache<T, @Nullable Direction>[] caches = new BlockCapabilityCache[6];
+
+    /**
+     * @param capability   The capability to look up on each neighbour. Each neighbour is asked for it on the side facing {@code pos}.
+     * @param level        The level.
+     * @param pos          The position whose neighbours are cached.
+     * @param isValid      Whether the owner of this cache still exists. Once this returns {@code false}, NeoForge stops notifying it.
+     * @param onInvalidate Called whenever a neighbour's capability may have changed, for instance to wake up a sleeping machine.
+     */
+    public NeighbourCapabilityCache(BlockCapability<T, @Nullable Direction> capability, ServerLevel level, BlockPos pos, BooleanSupplier isValid, Runnable onInvalidate) {
+        this.capability = capability;
+        this.level = level;
+        this.pos = pos.immutable();
+        this.isValid = isValid;
+        this.onInvalidate = onInvalidate;
+    }
+
+    /**
+     * @param direction The direction of the neighbour, from the cached position.
+     * @return The capability of the neighbour, or {@code null} if it has none.
+     */
+    @Nullable
+    public T get(Direction direction) {
+        BlockCapabilityCache<T, @Nullable Direction> cache = caches[direction.ordinal()];
+        if (cache == null) {
+            cache = caches[direction.ordinal()] = BlockCapabilityCache.create(capability, level, pos.relative(direction), direction.getOpposite(), isValid, onInvalidate);
+        }
+        return cache.getCapability();
+    }
+}
@@ -37,4 +37,28 @@ public class DirectionHelpers {
      * An array containing all directions except WEST, useful for operations that need to exclude the western direction.
      */
     public static final Direction[] DIRECTIONS_NOT_WEST = new Direction[]{Direction.UP, Direction.DOWN, Direction.NORTH, Direction.SOUTH, Direction.EAST};
+
+    /**
+     * The x offset of each direction, indexed by {@link Direction#ordinal()} (which is the same as {@link Direction#get3DDataValue()}).
+     * Together with {@link #OFFSETS_Y} and {@link #OFFSETS_Z}, this allows neighbour iteration on packed positions without touching any {@link net.minecraft.core.Vec3i}.
+     */
+    public static final int[] OFFSETS_X = new int[DIRECTIONS.length];
+
+    /**
+     * The y offset of each direction, indexed by {@link Direction#ordinal()}.
+     */
+    public static final int[] OFFSETS_Y = new int[DIRECTIONS.length];
+
+    /**
+     * The z offset of each direction, indexed by {@link Direction#ordinal()}.
+     */
+    public static final int[] OFFSETS_Z = new int[DIRECTIONS.length];
+
+    static {
+        for (Direction direction : DIRECTIONS) {
+            OFFSETS_X[direction.ordinal()] = direction.getStepX();
+            OFFSETS_Y[direction.ordinal()] = direction.getStepY();
+            OFFSETS_Z[direction.ordinal()] = direction.getStepZ();
+        }
+    }
 }
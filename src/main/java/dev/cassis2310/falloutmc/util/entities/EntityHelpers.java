@@ -16,14 +16,16 @@ import java.util.Optional;
 public class EntityHelpers {
 
     /**
-     * Checks if an entity has moved since the last tick.
+     * Checks if an entity has moved horizontally since the last tick.
      * This method is particularly useful for blocks or items that react to movement, such as Powder Snow.
+     * To check movement over more than one tick, or to be notified of movement instead of checking every tick, use a
+     * {@link dev.cassis2310.falloutmc.common.entities.MovementTracker}.
      *
      * @param entity The entity to check.
-     * @return True if the entity has moved, otherwise false.
+     * @return True if the entity has moved along either horizontal axis, otherwise false.
      */
     public static boolean hasMoved(Entity entity) {
-        return entity.xOld != entity.getX() && entity.zOld != entity.getZ();
+        return entity.xOld != entity.getX() || entity.zOld != entity.getZ();
     }
 
     /**
@@ -42,12 +44,12 @@ public class EntityHelpers {
         final float rot = (entity.getYHeadRot() + speed) % 360f;
         entity.setYRot(rot);
         if (level.isClientSide && entity instanceof Player) {
-            final Vec3 offset = entity.position().subtract(origin).normalize();
-            final Vec3 movement = new Vec3(-offset.z, 0, offset.x).scale(speed / 48f);
+            entity.setDeltaMovement(entity.getDeltaMovement().add(rotationMovement(entity.position(), origin, speed)));
             entity.hurtMarked = true; // rsync movement
             return;
         }
         if (entity instanceof LivingEntity living) {
+            entity.setDeltaMovement(entity.getDeltaMovement().add(rotationMovement(entity.position(), origin, speed)));
             entity.setYHeadRot(rot);
             entity.setYBodyRot(rot);
             entity.setOnGround(false);
@@ -56,6 +58,20 @@ public class EntityHelpers {
         }
     }
 
+    /**
+     * Computes the movement which carries an entity around a rotating origin, tangent to the circle through its position. Shared by the client
+     * and server, so client side prediction matches the server.
+     *
+     * @param position The position of the entity.
+     * @param origin   The origin point of the rotation.
+     * @param speed    The speed of rotation, in degrees per tick.
+     * @return The movement to add to the entity, this tick.
+     */
+    public static Vec3 rotationMovement(Vec3 position, Vec3 origin, float speed) {
+        final Vec3 offset = position.subtract(origin).normalize();
+        return new Vec3(-offset.z, 0, offset.x).scale(speed / 48f);
+    }
+
     /**
      * Checks if the given Entity matches the specified Tag.
      *
@@ -21,6 +21,20 @@ public class ImmutableListHelpers {
         return ImmutableList.<T>builderWithExpectedSize(list.size() + 1).addAll(list).add(element).build();
     }
 
+    /**
+     * Given a vector containing {@code [a0, ... aN]} and an element {@code aN+1}, returns a new vector containing {@code [a0, ... aN, aN+1]}.
+     * Unlike {@link #immutableAdd(List, Object)}, this shares structure with the original and only copies O(log n) data, so it should be
+     * preferred for lists which are appended to repeatedly, such as event logs.
+     *
+     * @param list    the vector to append to.
+     * @param element the element to append.
+     * @param <T>     the type of the list.
+     * @return a new vector containing the original elements and the appended element.
+     */
+    public static <T> PersistentVector<T> immutableAdd(PersistentVector<T> list, T element) {
+        return list.plus(element);
+    }
+
     /**
      * Appends all elements from one list to another immutable list.
      *
@@ -54,6 +68,37 @@ public class ImmutableListHelpers {
         return builder.build();
     }
 
+    /**
+     * Given a vector containing {@code [a0, ... aN]} and an element {@code ai}, returns a new vector containing {@code [a0, ... ai-1
+     * , ai+1, ... aN]}. As with {@link #immutableRemove(List, Object)}, elements are compared by identity. Finding the element is a linear
+     * scan, but removing it only costs time proportional to its distance from the end of the vector.
+     *
+     * @param list    the vector to remove from.
+     * @param element the element to remove.
+     * @param <T>     the type of the list.
+     * @return a new vector containing the original elements except the removed element.
+     */
+    public static <T> PersistentVector<T> immutableRemove(PersistentVector<T> list, T element) {
+        for (int i = list.size() - 1; i >= 0; i--)
+            if (list.get(i) == element)
+                list = list.minus(i);
+        return list;
+    }
+
+    /**
+     * Given a vector containing {@code [a0, ... aN]} and an index {@code i}, returns a new vector containing {@code [a0, ... ai-1, ai+1, ... aN]}.
+     *
+     * @param list  the vector to remove from.
+     * @param index the index of the element to remove.
+     * @param <T>   the type of the list.
+     * @return a new vector containing the original elements except the removed element.
+     * @throws IndexOutOfBoundsException if the index is out of bounds.
+     * @see PersistentVector#minus(int)
+     */
+    public static <T> PersistentVector<T> immutableRemoveAt(PersistentVector<T> list, int index) {
+        return list.minus(index);
+    }
+
     /**
      * Given a list containing {@code [a0, ... ai, ... aN}, an element {@code bi}, and an index {@code i}, returns a new, immutable list
      * containing {@code [a0, ... bi, ... aN]} in the most efficient manner (a single data copy). The new list will contain the same
@@ -72,6 +117,21 @@ public class ImmutableListHelpers {
         return builder.build();
     }
 
+    /**
+     * Given a vector containing {@code [a0, ... ai, ... aN}, an element {@code bi}, and an index {@code i}, returns a new vector
+     * containing {@code [a0, ... bi, ... aN]}. Only the path to the leaf containing {@code i} is copied, which is O(log n).
+     *
+     * @param list    the vector to swap in.
+     * @param element the new element to swap in.
+     * @param index   the index of the element to swap out.
+     * @param <T>     the type of the list.
+     * @return a new vector containing the original elements except the swapped element.
+     * @throws IndexOutOfBoundsException if the index is out of bounds.
+     */
+    public static <T> PersistentVector<T> immutableSwap(PersistentVector<T> list, T element, int index) {
+        return list.with(index, element);
+    }
+
     /**
      * Creates a new immutable list containing {@code n} new, separate instances of {@code T} produced by the given {@code factory}. This is unlike
      * {@link Collections#nCopies(int, Object)} in that it produces separate instance, and consumes memory proportional to O(n). However, in
@@ -0,0 +1,320 @@
+package dev.cassis2310.falloutmc.util.lists;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * An immutable, bit-partitioned vector trie with a 32-way branching factor. Every "modifying" operation returns a new vector which
+ * shares all untouched nodes with the original, so appending, replacing and removing the last element cost O(log32 n) rather than a
+ * full copy of the list. This is the same structure as Clojure's {@code PersistentVector}: elements live in 32-wide leaves, and the
+ * right-most leaf is kept outside the tree as a {@code tail} so that most appends only copy a single small array.
+ * <p>
+ * The vector implements {@link java.util.List} and behaves like any other unmodifiable list - the mutating methods inherited from
+ * {@link AbstractList} throw {@link UnsupportedOperationException}. Use {@link #plus(Object)}, {@link #with(int, Object)},
+ * {@link #pop()} and {@link #minus(int)} instead.
+ *
+ * @param <T> the type of the vector.
+ * @see ImmutableListHelpers
+ */
+public final class PersistentVector<T> extends AbstractList<T> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    /**
+     * Returns the empty vector.
+     *
+     * @param <T> the type of the vector.
+     * @return the shared empty vector.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentVector<T> empty() {
+        return (PersistentVector<T>) EMPTY;
+    }
+
+    /**
+     * Creates a vector containing the given elements, in order.
+     *
+     * @param elements the elements.
+     * @param <T>      the type of the vector.
+     * @return a new vector containing the elements.
+     */
+    @SafeVarargs
+    public static <T> PersistentVector<T> of(T... elements) {
+        return fromArray(elements.clone());
+    }
+
+    /**
+     * Creates a vector containing the elements of {@code collection}, in iteration order. If the collection is already a
+     * {@link PersistentVector}, it is returned as-is. Otherwise, this fills the leaves directly, and does not go through {@link #plus(Object)}.
+     *
+     * @param collection the collection to copy.
+     * @param <T>        the type of the vector.
+     * @return a vector containing the elements of the collection.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PersistentVector<T> copyOf(Collection<? extends T> collection) {
+        if (collection instanceof PersistentVector<?> vector) {
+            return (PersistentVector<T>) vector;
+        }
+        return fromArray(collection.toArray());
+    }
+
+    private static <T> PersistentVector<T> fromArray(Object[] elements) {
+        PersistentVector<T> vector = empty();
+        for (int start = 0; start < elements.length; start += WIDTH) {
+            vector = vector.pushLeaf(Arrays.copyOfRange(elements, start, Math.min(start + WIDTH, elements.length)));
+        }
+        return vector;
+    }
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        return (T) leafFor(index)[index & MASK];
+    }
+
+    /**
+     * Appends an element to the end of the vector.
+     *
+     * @param element the element to append.
+     * @return a new vector with the element appended.
+     */
+    public PersistentVector<T> plus(T element) {
+        if (size - tailOffset() < WIDTH) {
+            final Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        return pushLeaf(new Object[]{element});
+    }
+
+    /**
+     * Replaces the element at {@code index}, copying only the path from the root to the affected leaf.
+     *
+     * @param index   the index to replace.
+     * @param element the new element.
+     * @return a new vector with the element at {@code index} replaced.
+     * @throws IndexOutOfBoundsException if the index is out of bounds.
+     */
+    public PersistentVector<T> with(int index, T element) {
+        checkIndex(index);
+        if (index >= tailOffset()) {
+            final Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, assoc(shift, root, index, element), tail);
+    }
+
+    /**
+     * Removes the last element of the vector.
+     *
+     * @return a new vector without the last element.
+     * @throws IllegalStateException if the vector is empty.
+     */
+    public PersistentVector<T> pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Cannot pop from an empty vector");
+        }
+        if (size == 1) {
+            return empty();
+        }
+        if (size - tailOffset() > 1) {
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        // The tail is about to become empty, so the right-most leaf in the tree is promoted to be the new tail
+        final Object[] newTail = leafFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    /**
+     * Removes the element at {@code index}. Removing an element that lives in the tail (the last 1 - 32 elements) only copies the tail.
+     * Removing from earlier in the vector has to shift every following element down by one, and so costs O((n - index) log32 n),
+     * which is still proportional to the distance from the end rather than to the size of the whole vector.
+     *
+     * @param index the index to remove.
+     * @return a new vector without the element at {@code index}.
+     * @throws IndexOutOfBoundsException if the index is out of bounds.
+     */
+    public PersistentVector<T> minus(int index) {
+        checkIndex(index);
+        final int tailOffset = tailOffset();
+        if (index == size - 1) {
+            return pop();
+        }
+        if (index >= tailOffset) {
+            final Object[] newTail = new Object[tail.length - 1];
+            final int tailIndex = index - tailOffset;
+            System.arraycopy(tail, 0, newTail, 0, tailIndex);
+            System.arraycopy(tail, tailIndex + 1, newTail, tailIndex, newTail.length - tailIndex);
+            return new PersistentVector<>(size - 1, shift, root, newTail);
+        }
+        PersistentVector<T> vector = this;
+        for (int i = size - 1; i >= index; i--) {
+            vector = vector.pop();
+        }
+        for (int i = index + 1; i < size; i++) {
+            vector = vector.plus(get(i));
+        }
+        return vector;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int index = 0;
+            private int leafStart = 0;
+            private Object[] leaf = size > 0 ? leafFor(0) : tail;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                if (index - leafStart == WIDTH) {
+                    leaf = leafFor(index);
+                    leafStart = index;
+                }
+                return (T) leaf[index++ - leafStart];
+            }
+        };
+    }
+
+    /**
+     * @return the index of the first element stored in {@code tail}.
+     */
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+
+    private Object[] leafFor(int index) {
+        checkIndex(index);
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    /**
+     * Moves the current (full) tail into the tree, and installs {@code leaf} as the new tail.
+     * Requires that the current tail is either empty (for the empty vector) or exactly {@link #WIDTH} elements long.
+     */
+    private PersistentVector<T> pushLeaf(Object[] leaf) {
+        if (size == 0) {
+            return new PersistentVector<>(leaf.length, shift, root, leaf);
+        }
+        final Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            // The tree is full at the current depth, so grow a new root above it
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(size + leaf.length, newShift, newRoot, leaf);
+    }
+
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        final int subIndex = ((size - 1) >>> level) & MASK;
+        final Object[] node = parent.clone();
+        if (level == BITS) {
+            node[subIndex] = tailNode;
+        } else {
+            final Object[] child = (Object[]) parent[subIndex];
+            node[subIndex] = child != null ? pushTail(level - BITS, child, tailNode) : newPath(level - BITS, tailNode);
+        }
+        return node;
+    }
+
+    private Object[] popTail(int level, Object[] parent) {
+        final int subIndex = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            final Object[] child = popTail(level - BITS, (Object[]) parent[subIndex]);
+            if (child == null && subIndex == 0) {
+                return null;
+            }
+            final Object[] node = parent.clone();
+            node[subIndex] = child;
+            return node;
+        }
+        if (subIndex == 0) {
+            return null;
+        }
+        final Object[] node = parent.clone();
+        node[subIndex] = null;
+        return node;
+    }
+
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        final Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+
+    private static Object[] assoc(int level, Object[] parent, int index, Object element) {
+        final Object[] node = parent.clone();
+        if (level == 0) {
+            node[index & MASK] = element;
+        } else {
+            final int subIndex = (index >>> level) & MASK;
+            node[subIndex] = assoc(level - BITS, (Object[]) parent[subIndex], index, element);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,323 @@
+package dev.cassis2310.falloutmc.util.maps;
+
+import it.unimi.dsi.fastutil.objects.Object2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.util.RandomSource;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A mutable, insertion-ordered map which additionally keeps its values in a dense array, so that a uniformly random value can be picked
+ * in O(1) (see {@link #getRandomValue(RandomSource)}). Removal swaps the last slot into the hole, so the dense array stays packed, while
+ * iteration order remains the order of insertion.
+ * <p>
+ * Each entry also carries a non-negative weight (defaulting to {@code 1}), stored in a Fenwick tree over the dense slots. This allows
+ * weighted picks ({@link #getWeightedRandomValue(RandomSource)}) and weight updates in O(log n). Null keys and values are not permitted.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ * @see MapHelpers#getRandomValue(Map, RandomSource)
+ */
+public class IndexedMap<K, V> extends AbstractMap<K, V> {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    /**
+     * Creates a new indexed map containing all entries of {@code map}, in its iteration order, each with a weight of {@code 1}.
+     *
+     * @param map The map to copy.
+     * @param <K> The key type.
+     * @param <V> The value type.
+     * @return A new indexed map.
+     */
+    public static <K, V> IndexedMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+        final IndexedMap<K, V> indexed = new IndexedMap<>(map.size());
+        indexed.putAll(map);
+        return indexed;
+    }
+
+    /**
+     * Creates a new indexed map containing all entries of {@code map}, in its iteration order, with weights computed from each value.
+     *
+     * @param map    The map to copy.
+     * @param weight A function computing the weight of each value. Must not return negative weights.
+     * @param <K>    The key type.
+     * @param <V>    The value type.
+     * @return A new indexed map.
+     */
+    public static <K, V> IndexedMap<K, V> copyOf(Map<? extends K, ? extends V> map, ToDoubleFunction<? super V> weight) {
+        final IndexedMap<K, V> indexed = new IndexedMap<>(map.size());
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            indexed.put(entry.getKey(), entry.getValue(), weight.applyAsDouble(entry.getValue()));
+        }
+        return indexed;
+    }
+
+    private final Object2IntLinkedOpenHashMap<K> indices;
+    private Object[] keys;
+    private Object[] values;
+    private double[] weights;
+    private double[] tree; // Fenwick tree over weights, 1-indexed
+    private int size;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    public IndexedMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IndexedMap(int expectedSize) {
+        final int capacity = Math.max(DEFAULT_CAPACITY, expectedSize);
+        this.indices = new Object2IntLinkedOpenHashMap<>(capacity);
+        this.indices.defaultReturnValue(-1);
+        this.keys = new Object[capacity];
+        this.values = new Object[capacity];
+        this.weights = new double[capacity];
+        this.tree = new double[capacity + 1];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indices.containsKey(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        final int index = indices.getInt(key);
+        return index == -1 ? null : (V) values[index];
+    }
+
+    @Override
+    public V put(K key, V value) {
+        final int index = indices.getInt(key);
+        return put(key, value, index == -1 ? 1 : weights[index]);
+    }
+
+    /**
+     * Associates {@code value} with {@code key}, with the given weight. If the key is already present, the value and weight are replaced,
+     * and the key keeps its position in iteration order.
+     *
+     * @param key    The key.
+     * @param value  The value.
+     * @param weight The weight used by {@link #getWeightedRandomValue(RandomSource)}. Must be non-negative.
+     * @return The previous value associated with the key, or {@code null} if there was none.
+     * @throws IllegalArgumentException if the weight is negative or not a number.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value, double weight) {
+        if (key == null || value == null) {
+            throw new NullPointerException("IndexedMap does not permit null keys or values");
+        }
+        if (!(weight >= 0)) {
+            throw new IllegalArgumentException("Weight must be non-negative, got " + weight);
+        }
+        final int index = indices.getInt(key);
+        if (index != -1) {
+            final V previous = (V) values[index];
+            values[index] = value;
+            setWeight(index, weight);
+            return previous;
+        }
+        if (size == keys.length) {
+            grow();
+        }
+        keys[size] = key;
+        values[size] = value;
+        indices.put(key, size);
+        setWeight(size, weight);
+        size++;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        final int index = indices.removeInt(key);
+        if (index == -1) {
+            return null;
+        }
+        final V previous = (V) values[index];
+        removeSlot(index);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        indices.clear();
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(weights, 0, size, 0);
+        Arrays.fill(tree, 0);
+        size = 0;
+    }
+
+    /**
+     * Returns the weight of the entry for {@code key}, or zero if it is not present.
+     *
+     * @param key The key.
+     * @return The weight of the entry.
+     */
+    public double getWeight(Object key) {
+        final int index = indices.getInt(key);
+        return index == -1 ? 0 : weights[index];
+    }
+
+    /**
+     * @return The sum of the weights of all entries.
+     */
+    public double getTotalWeight() {
+        return prefixSum(size);
+    }
+
+    /**
+     * Returns a uniformly random value from the map, in O(1).
+     *
+     * @param random The random source to use.
+     * @return A random value from the map.
+     * @throws IllegalArgumentException if the map is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public V getRandomValue(RandomSource random) {
+        return (V) values[random.nextInt(size)];
+    }
+
+    /**
+     * Returns a random value from the map, where each value is picked with a probability proportional to its weight, in O(log n).
+     *
+     * @param random The random source to use.
+     * @return A random value from the map, or {@code null} if the map is empty or all weights are zero.
+     */
+    @SuppressWarnings("unchecked")
+    public V getWeightedRandomValue(RandomSource random) {
+        final double total = getTotalWeight();
+        if (size == 0 || total <= 0) {
+            return null;
+        }
+        // Descend the Fenwick tree to find the first slot whose prefix sum exceeds the target
+        double target = random.nextDouble() * total;
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            final int next = position + step;
+            if (next < tree.length && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+        // Floating point error can leave us one past the last slot, or on a zero weight slot at the end
+        int index = Math.min(position, size - 1);
+        while (index > 0 && weights[index] == 0) {
+            index--;
+        }
+        return (V) values[index];
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private void removeSlot(int index) {
+        final int last = size - 1;
+        setWeight(index, 0);
+        if (index != last) {
+            // Swap the last slot into the hole, keeping the dense arrays packed
+            final double lastWeight = weights[last];
+            setWeight(last, 0);
+            keys[index] = keys[last];
+            values[index] = values[last];
+            setWeight(index, lastWeight);
+            indices.put(keyAt(index), index);
+        }
+        keys[last] = null;
+        values[last] = null;
+        size--;
+    }
+
+    private void setWeight(int index, double weight) {
+        final double delta = weight - weights[index];
+        weights[index] = weight;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private double prefixSum(int count) {
+        double sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    private void grow() {
+        final int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        weights = Arrays.copyOf(weights, capacity);
+        // Rebuild the Fenwick tree in O(n), as the node ranges depend on its length
+        tree = new double[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            tree[i] += weights[i - 1];
+            final int parent = i + (i & -i);
+            if (parent <= capacity) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private K keyAt(int index) {
+        return (K) keys[index];
+    }
+
+    private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            IndexedMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new Iterator<>() {
+                private final ObjectIterator<K> iterator = indices.keySet().iterator();
+                private K current;
+
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    current = iterator.next();
+                    return new AbstractMap.SimpleImmutableEntry<>(current, get(current));
+                }
+
+                @Override
+                public void remove() {
+                    final int index = indices.getInt(current);
+                    iterator.remove();
+                    removeSlot(index);
+                }
+            };
+        }
+    }
+}
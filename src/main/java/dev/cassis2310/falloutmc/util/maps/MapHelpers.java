@@ -1,11 +1,19 @@
 package dev.cassis2310.falloutmc.util.maps;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
 import net.minecraft.util.RandomSource;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
 
 public class MapHelpers {
     /**
@@ -27,9 +35,60 @@ public class MapHelpers {
         return builder.build();
     }
 
+    /**
+     * Transforms a map's values lazily. The returned map is an unmodifiable view with the same keys and iteration order as {@code map},
+     * where each value is computed by {@code func} the first time it is accessed, and then memoised. Computation is thread safe, and
+     * happens at most once per key, even if the value is requested concurrently from several threads.
+     * This is useful for large lookup tables where the function is expensive, and most callers only read a few keys.
+     * <p>
+     * The keys and original values are copied eagerly, so later modifications to {@code map} are not reflected in the view.
+     *
+     * @param map  The original map to transform.
+     * @param func The function to apply to each value, when it is first accessed.
+     * @param <K>  The key type.
+     * @param <V1> The original value type.
+     * @param <V2> The new value type.
+     * @return A lazily computed view of the transformed values.
+     */
+    public static <K, V1, V2> Map<K, V2> mapValueLazy(Map<K, V1> map, Function<V1, V2> func) {
+        final ImmutableMap.Builder<K, Supplier<V2>> builder = ImmutableMap.builderWithExpectedSize(map.size());
+        for (Map.Entry<K, V1> entry : map.entrySet()) {
+            final V1 value = entry.getValue();
+            builder.put(entry.getKey(), Suppliers.memoize(() -> func.apply(value)));
+        }
+        return Maps.transformValues(builder.build(), Supplier::get);
+    }
+
+    /**
+     * Transforms a map's values using a provided function, and returns a new immutable map, like {@link #mapValue(Map, Function)}.
+     * The function is applied to the values in parallel using the common fork join pool, which makes this suitable for large maps with
+     * expensive functions, such as when building tables on startup. The function must be safe to call from multiple threads.
+     * The iteration order of the result is the same as the iteration order of {@code map}.
+     *
+     * @param map  The original map to transform.
+     * @param func The function to apply to each value.
+     * @param <K>  The key type.
+     * @param <V1> The original value type.
+     * @param <V2> The new value type.
+     * @return A new map with transformed values.
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V1, V2> Map<K, V2> mapValueParallel(Map<K, V1> map, Function<V1, V2> func) {
+        final List<Map.Entry<K, V1>> entries = ImmutableList.copyOf(map.entrySet());
+        final Object[] values = new Object[entries.size()];
+        IntStream.range(0, values.length).parallel().forEach(i -> values[i] = func.apply(entries.get(i).getValue()));
+
+        final ImmutableMap.Builder<K, V2> builder = ImmutableMap.builderWithExpectedSize(values.length);
+        for (int i = 0; i < values.length; i++) {
+            builder.put(entries.get(i).getKey(), (V2) values[i]);
+        }
+        return builder.build();
+    }
+
     /**
      * Returns a random value from a map, using the provided random source.
      * This method is useful for randomly selecting a value from a collection of mapped data.
+     * For most maps this is O(n), as it has to walk the values. If the map is an {@link IndexedMap}, the pick is O(1) instead.
      *
      * @param map    The map to select from.
      * @param random The random source to use.
@@ -38,6 +97,63 @@ public class MapHelpers {
      * @return A random value from the map.
      */
     public static <K, V> V getRandomValue(Map<K, V> map, RandomSource random) {
+        if (map instanceof IndexedMap<K, V> indexed) {
+            return indexed.getRandomValue(random);
+        }
         return Iterators.get(map.values().iterator(), random.nextInt(map.size()));
     }
+
+    /**
+     * Returns a random value from an indexed map, using the provided random source, in O(1).
+     *
+     * @param map    The map to select from.
+     * @param random The random source to use.
+     * @param <K>    The key type.
+     * @param <V>    The value type.
+     * @return A random value from the map.
+     */
+    public static <K, V> V getRandomValue(IndexedMap<K, V> map, RandomSource random) {
+        return map.getRandomValue(random);
+    }
+
+    /**
+     * Returns a random value from an indexed map, where each value is picked with a probability proportional to its weight.
+     *
+     * @param map    The map to select from.
+     * @param random The random source to use.
+     * @param <K>    The key type.
+     * @param <V>    The value type.
+     * @return A random value from the map, or null if the map is empty or has no positive weights.
+     * @see IndexedMap#put(Object, Object, double)
+     */
+    @Nullable
+    public static <K, V> V getWeightedRandomValue(IndexedMap<K, V> map, RandomSource random) {
+        return map.getWeightedRandomValue(random);
+    }
+
+    /**
+     * Copies a map into an {@link IndexedMap}, preserving its iteration order, so that random values may be selected from it in O(1).
+     * Every entry is given a weight of {@code 1}.
+     *
+     * @param map The map to copy.
+     * @param <K> The key type.
+     * @param <V> The value type.
+     * @return A new indexed map with the same entries.
+     */
+    public static <K, V> IndexedMap<K, V> toIndexedMap(Map<K, V> map) {
+        return IndexedMap.copyOf(map);
+    }
+
+    /**
+     * Copies a map into an {@link IndexedMap}, preserving its iteration order, with weights computed from each value.
+     *
+     * @param map    The map to copy.
+     * @param weight A function computing the (non-negative) weight of each value.
+     * @param <K>    The key type.
+     * @param <V>    The value type.
+     * @return A new indexed map with the same entries.
+     */
+    public static <K, V> IndexedMap<K, V> toIndexedMap(Map<K, V> map, ToDoubleFunction<V> weight) {
+        return IndexedMap.copyOf(map, weight);
+    }
 }
@@ -0,0 +1,101 @@
+package dev.cassis2310.falloutmc.util.worlds;
+
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.status.ChunkStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads block states by packed position, caching the last chunk and chunk section that was accessed. Graph searches over blocks tend to
+ * visit long runs of positions in the same section, so most reads skip the chunk map lookup entirely and go straight to the section's
+ * palette. Reads never load or generate chunks - positions in unloaded chunks read as {@code null}.
+ * <p>
+ * A reader is not thread safe, and should not be held across ticks, as it holds on to chunk sections which may be unloaded.
+ */
+public class CachedSectionReader {
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+
+    private final LevelReader level;
+
+    private long cachedChunkKey = Long.MAX_VALUE;
+    private @Nullable ChunkAccess cachedChunk;
+    private int cachedSectionY = Integer.MIN_VALUE;
+    private @Nullable LevelChunkSection cachedSection;
+
+    public CachedSectionReader(LevelReader level) {
+        this.level = level;
+    }
+
+    /**
+     * @return The level this reader reads from.
+     */
+    public LevelReader getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the block state at a packed position.
+     *
+     * @param packed The packed position, see {@link PackedPosHelpers}.
+     * @return The block state, or {@code null} if the position is in an unloaded chunk, or outside the build height.
+     */
+    @Nullable
+    public BlockState getBlockState(long packed) {
+        return getBlockState(PackedPosHelpers.getX(packed), PackedPosHelpers.getY(packed), PackedPosHelpers.getZ(packed));
+    }
+
+    /**
+     * Returns the block state at a position.
+     *
+     * @param x The block x-coordinate.
+     * @param y The block y-coordinate.
+     * @param z The block z-coordinate.
+     * @return The block state, or {@code null} if the position is in an unloaded chunk, or outside the build height.
+     */
+    @Nullable
+    public BlockState getBlockState(int x, int y, int z) {
+        final int sectionY = SectionPos.blockToSectionCoord(y);
+        final long chunkKey = ChunkPos.asLong(SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(z));
+        if (chunkKey != cachedChunkKey) {
+            cachedChunkKey = chunkKey;
+            cachedChunk = level.getChunk(SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(z), ChunkStatus.FULL, false);
+            cachedSectionY = Integer.MIN_VALUE;
+            cachedSection = null;
+        }
+        if (cachedChunk == null) {
+            return null;
+        }
+        if (sectionY != cachedSectionY) {
+            final int index = cachedChunk.getSectionIndexFromSectionY(sectionY);
+            cachedSectionY = sectionY;
+            cachedSection = index >= 0 && index < cachedChunk.getSectionsCount() ? cachedChunk.getSection(index) : null;
+        }
+        if (cachedSection == null) {
+            return null;
+        }
+        return cachedSection.hasOnlyAir() ? AIR : cachedSection.getBlockState(x & 15, y & 15, z & 15);
+    }
+
+    /**
+     * @param packed The packed position.
+     * @return {@code true} if the position is inside a loaded chunk, and within the build height.
+     */
+    public boolean isLoaded(long packed) {
+        return getBlockState(packed) != null;
+    }
+
+    /**
+     * Drops the cached chunk and section. This must be called if the reader is reused after chunks may have been loaded or unloaded.
+     */
+    public void invalidate() {
+        cachedChunkKey = Long.MAX_VALUE;
+        cachedChunk = null;
+        cachedSectionY = Integer.MIN_VALUE;
+        cachedSection = null;
+    }
+}
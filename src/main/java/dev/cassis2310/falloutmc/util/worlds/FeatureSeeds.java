@@ -0,0 +1,88 @@
+package dev.cassis2310.falloutmc.util.worlds;
+
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.levelgen.RandomSupport;
+import net.minecraft.world.level.levelgen.XoroshiroRandomSource;
+
+/**
+ * Stateless, splittable seeding for world generation, in the style of SplitMix64. Every seed is a pure function of its inputs, computed by
+ * repeatedly folding one input into a running hash and scrambling it with {@link RandomSupport#mixStafford13(long)}, so:
+ * <ul>
+ *     <li>There is no shared {@link RandomSource} to re-seed, so features for different chunks (or different features in the same chunk) can
+ *     be placed on any thread, in any order, and still generate identically.</li>
+ *     <li>Inputs that differ by one produce unrelated seeds, avoiding the clustering described in
+ *     {@link WorldHelpers#seedLargeFeatures(RandomSource, long, int, int)}, where neighbouring seeds produced nearly equal first values.</li>
+ * </ul>
+ * For a full random source, use {@link #featureRandom(long, int, int, int, int)}. For a handful of values, {@link #valueAt(long, int)}
+ * and friends read a stream by counter, without allocating.
+ */
+public class FeatureSeeds {
+    /**
+     * Derives the seed for a feature in a chunk.
+     *
+     * @param worldSeed  The world seed.
+     * @param chunkX     The chunk x-coordinate.
+     * @param chunkZ     The chunk z-coordinate.
+     * @param index      The index of the feature within its decoration step.
+     * @param decoration The decoration step.
+     * @return A well mixed seed, unique to the inputs.
+     */
+    public static long featureSeed(long worldSeed, int chunkX, int chunkZ, int index, int decoration) {
+        long hash = RandomSupport.mixStafford13(worldSeed ^ RandomSupport.SILVER_RATIO_64);
+        hash = combine(hash, chunkX);
+        hash = combine(hash, chunkZ);
+        hash = combine(hash, index);
+        return combine(hash, decoration);
+    }
+
+    /**
+     * Creates a random source for a feature in a chunk. Each call returns a new, independent source, so this is safe to call from any thread.
+     *
+     * @see #featureSeed(long, int, int, int, int)
+     */
+    public static RandomSource featureRandom(long worldSeed, int chunkX, int chunkZ, int index, int decoration) {
+        return new XoroshiroRandomSource(featureSeed(worldSeed, chunkX, chunkZ, index, decoration));
+    }
+
+    /**
+     * Derives an independent child seed from a parent, for splitting one stream into several (for instance, one per piece of a structure).
+     *
+     * @param seed The parent seed.
+     * @param key  Identifies the child.
+     * @return The child seed.
+     */
+    public static long split(long seed, long key) {
+        return combine(seed, key);
+    }
+
+    /**
+     * Returns the value at a position in the stream described by a seed. Values at different counters are independent.
+     *
+     * @param seed    The stream seed.
+     * @param counter The position in the stream.
+     * @return A uniformly distributed long.
+     */
+    public static long valueAt(long seed, int counter) {
+        return RandomSupport.mixStafford13(seed + (counter + 1L) * RandomSupport.GOLDEN_RATIO_64);
+    }
+
+    /**
+     * @return A uniformly distributed float in {@code [0, 1)}, from the value at a position in a stream.
+     * @see #valueAt(long, int)
+     */
+    public static float floatAt(long seed, int counter) {
+        return (valueAt(seed, counter) >>> 40) * 0x1.0p-24f;
+    }
+
+    /**
+     * @return A uniformly distributed int in {@code [0, bound)}, from the value at a position in a stream.
+     * @see #valueAt(long, int)
+     */
+    public static int intAt(long seed, int counter, int bound) {
+        return (int) (((valueAt(seed, counter) >>> 32) * bound) >>> 32);
+    }
+
+    private static long combine(long hash, long value) {
+        return RandomSupport.mixStafford13(hash + RandomSupport.GOLDEN_RATIO_64 + value * RandomSupport.SILVER_RATIO_64);
+    }
+}
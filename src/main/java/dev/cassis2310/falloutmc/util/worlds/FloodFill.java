@@ -0,0 +1,212 @@
+package dev.cassis2310.falloutmc.util.worlds;
+
+import dev.cassis2310.falloutmc.util.directions.DirectionHelpers;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongIterable;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.LevelReader;
+import net.minecraft.world.level.block.state.BlockState;
+
+/**
+ * A reusable breadth first flood fill over block positions. Positions are stored packed (see {@link PackedPosHelpers}) in a primitive
+ * ring queue and open addressing hash sets, and block states are read through a {@link CachedSectionReader}, so a fill allocates nothing
+ * per visited node beyond the occasional growth of its backing arrays. Those arrays are kept between fills, so reusing an instance for
+ * repeated searches (fire spreading, fluid contamination, enclosure checks) avoids allocation entirely once warmed up.
+ * <p>
+ * Each fill expands from its start positions through every neighbour accepted by a {@link NodePredicate}. Positions which are rejected
+ * by the predicate are recorded as the {@linkplain #boundary() boundary} of the fill, and positions in unloaded chunks are never
+ * expanded into. A fill stops early if it exceeds its node or time limit.
+ * <p>
+ * Instances are not thread safe.
+ */
+public class FloodFill {
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    private final LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+    private final LongOpenHashSet visited = new LongOpenHashSet();
+    private final LongOpenHashSet boundary = new LongOpenHashSet();
+
+    private Direction[] directions = DirectionHelpers.DIRECTIONS;
+    private int maxNodes = Integer.MAX_VALUE;
+    private long maxNanos = Long.MAX_VALUE;
+    private boolean touchedUnloaded;
+
+    /**
+     * Sets the directions which are followed from each node. Defaults to all six directions.
+     *
+     * @param directions The directions, for example {@link DirectionHelpers#DIRECTIONS_NOT_UP}.
+     * @return this
+     */
+    public FloodFill withDirections(Direction[] directions) {
+        this.directions = directions;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of nodes which can be accepted into a single fill. A fill which finds any more stops with
+     * {@link Outcome#NODE_LIMIT}, having visited exactly this many.
+     *
+     * @param maxNodes The maximum number of nodes.
+     * @return this
+     */
+    public FloodFill withNodeLimit(int maxNodes) {
+        this.maxNodes = maxNodes;
+        return this;
+    }
+
+    /**
+     * Sets the maximum wall time a single fill may take before it stops with {@link Outcome#TIME_LIMIT}.
+     *
+     * @param maxNanos The time limit, in nanoseconds.
+     * @return this
+     */
+    public FloodFill withTimeLimit(long maxNanos) {
+        this.maxNanos = maxNanos;
+        return this;
+    }
+
+    /**
+     * Fills outwards from a single position. The start position must itself be accepted by the predicate, otherwise it is added to the
+     * boundary and the fill is empty.
+     *
+     * @param level     The level to read from.
+     * @param start     The packed start position.
+     * @param predicate Which positions the fill may enter.
+     * @return The reason the fill stopped.
+     */
+    public Outcome fill(LevelReader level, long start, NodePredicate predicate) {
+        return fill(new CachedSectionReader(level), start, predicate);
+    }
+
+    /**
+     * Fills outwards from a single position, reading through an existing reader.
+     *
+     * @param reader    The reader to read block states through.
+     * @param start     The packed start position.
+     * @param predicate Which positions the fill may enter.
+     * @return The reason the fill stopped.
+     */
+    public Outcome fill(CachedSectionReader reader, long start, NodePredicate predicate) {
+        reset();
+        if (!offer(reader, start, predicate)) {
+            return Outcome.NODE_LIMIT;
+        }
+        return run(reader, predicate);
+    }
+
+    /**
+     * Fills outwards from several positions at once, as a single region.
+     *
+     * @param reader    The reader to read block states through.
+     * @param starts    The packed start positions.
+     * @param predicate Which positions the fill may enter.
+     * @return The reason the fill stopped.
+     */
+    public Outcome fill(CachedSectionReader reader, LongIterable starts, NodePredicate predicate) {
+        reset();
+        for (LongIterator it = starts.iterator(); it.hasNext(); ) {
+            if (!offer(reader, it.nextLong(), predicate)) {
+                return Outcome.NODE_LIMIT;
+            }
+        }
+        return run(reader, predicate);
+    }
+
+    /**
+     * @return The positions accepted by the last fill. The set is owned by this fill, and is cleared by the next call to {@code fill}.
+     */
+    public LongSet visited() {
+        return visited;
+    }
+
+    /**
+     * @return The positions adjacent to the last fill which were rejected by the predicate. Owned by this fill, as with {@link #visited()}.
+     */
+    public LongSet boundary() {
+        return boundary;
+    }
+
+    /**
+     * @return {@code true} if the last fill tried to expand into an unloaded chunk, or outside the build height. In this case the region
+     * may extend further than the fill could see.
+     */
+    public boolean touchedUnloaded() {
+        return touchedUnloaded;
+    }
+
+    private void reset() {
+        queue.clear();
+        visited.clear();
+        boundary.clear();
+        touchedUnloaded = false;
+    }
+
+    private Outcome run(CachedSectionReader reader, NodePredicate predicate) {
+        final long startTime = System.nanoTime();
+        int processed = 0;
+        while (!queue.isEmpty()) {
+            if (++processed % TIME_CHECK_INTERVAL == 0 && System.nanoTime() - startTime > maxNanos) {
+                return Outcome.TIME_LIMIT;
+            }
+            final long pos = queue.dequeueLong();
+            final int x = PackedPosHelpers.getX(pos), y = PackedPosHelpers.getY(pos), z = PackedPosHelpers.getZ(pos);
+            for (Direction direction : directions) {
+                final int i = direction.ordinal();
+                if (!offer(reader, PackedPosHelpers.pack(x + DirectionHelpers.OFFSETS_X[i], y + DirectionHelpers.OFFSETS_Y[i], z + DirectionHelpers.OFFSETS_Z[i]), predicate)) {
+                    return Outcome.NODE_LIMIT;
+                }
+            }
+        }
+        return Outcome.COMPLETE;
+    }
+
+    /**
+     * @return {@code false} if the position was accepted, but the fill has already accepted as many positions as its node limit allows.
+     */
+    private boolean offer(CachedSectionReader reader, long pos, NodePredicate predicate) {
+        if (visited.contains(pos) || boundary.contains(pos)) {
+            return true;
+        }
+        final BlockState state = reader.getBlockState(pos);
+        if (state == null) {
+            touchedUnloaded = true;
+        } else if (predicate.test(pos, state)) {
+            if (visited.size() >= maxNodes) {
+                return false;
+            }
+            visited.add(pos);
+            queue.enqueue(pos);
+        } else {
+            boundary.add(pos);
+        }
+        return true;
+    }
+
+    /**
+     * Decides whether a flood fill may enter a position.
+     */
+    @FunctionalInterface
+    public interface NodePredicate {
+        /**
+         * @param pos   The packed position.
+         * @param state The block state at that position.
+         * @return {@code true} if the fill may enter the position.
+         */
+        boolean test(long pos, BlockState state);
+    }
+
+    /**
+     * The reason a fill stopped.
+     */
+    public enum Outcome {
+        /** The fill visited every reachable position. */
+        COMPLETE,
+        /** The fill found more positions than its node limit allows it to accept. */
+        NODE_LIMIT,
+        /** The fill ran for longer than its time limit. */
+        TIME_LIMIT
+    }
+}
@@ -0,0 +1,222 @@
+package dev.cassis2310.falloutmc.util.worlds;
+
+import dev.cassis2310.falloutmc.util.directions.DirectionHelpers;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.QuartPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Helpers for working with block positions packed into a single {@code long}, using the same encoding as {@link BlockPos#asLong()}.
+ * None of these methods allocate, which makes them suitable for hot paths such as fire spreading, flood fills and world generation,
+ * where a {@link BlockPos} per step would otherwise be created and immediately discarded.
+ * <p>
+ * Where a {@link BlockPos} is unavoidable (for example, to call {@link net.minecraft.world.level.LevelReader#getBlockState(BlockPos)}),
+ * prefer reusing a single {@link BlockPos.MutableBlockPos} via {@link #setMutable(BlockPos.MutableBlockPos, long)}.
+ */
+public class PackedPosHelpers {
+    /**
+     * Packs the given coordinates into a long.
+     *
+     * @param x the x-coordinate.
+     * @param y the y-coordinate.
+     * @param z the z-coordinate.
+     * @return the packed position.
+     * @see BlockPos#asLong(int, int, int)
+     */
+    public static long pack(int x, int y, int z) {
+        return BlockPos.asLong(x, y, z);
+    }
+
+    /**
+     * @param packed the packed position.
+     * @return the x-coordinate of the packed position.
+     */
+    public static int getX(long packed) {
+        return BlockPos.getX(packed);
+    }
+
+    /**
+     * @param packed the packed position.
+     * @return the y-coordinate of the packed position.
+     */
+    public static int getY(long packed) {
+        return BlockPos.getY(packed);
+    }
+
+    /**
+     * @param packed the packed position.
+     * @return the z-coordinate of the packed position.
+     */
+    public static int getZ(long packed) {
+        return BlockPos.getZ(packed);
+    }
+
+    /**
+     * Offsets a packed position by the given amounts.
+     *
+     * @param packed the packed position.
+     * @param dx     the x offset.
+     * @param dy     the y offset.
+     * @param dz     the z offset.
+     * @return the offset packed position.
+     */
+    public static long offset(long packed, int dx, int dy, int dz) {
+        return pack(getX(packed) + dx, getY(packed) + dy, getZ(packed) + dz);
+    }
+
+    /**
+     * Offsets a packed position by one block in the given direction.
+     *
+     * @param packed    the packed position.
+     * @param direction the direction to move in.
+     * @return the adjacent packed position.
+     */
+    public static long relative(long packed, Direction direction) {
+        return relative(packed, direction.ordinal());
+    }
+
+    /**
+     * Offsets a packed position by one block in the direction with the given index, as used by the offset tables in {@link DirectionHelpers}.
+     *
+     * @param packed         the packed position.
+     * @param directionIndex the {@link Direction#ordinal()} of the direction to move in.
+     * @return the adjacent packed position.
+     */
+    public static long relative(long packed, int directionIndex) {
+        return offset(packed, DirectionHelpers.OFFSETS_X[directionIndex], DirectionHelpers.OFFSETS_Y[directionIndex], DirectionHelpers.OFFSETS_Z[directionIndex]);
+    }
+
+    /**
+     * @param packed the packed position.
+     * @return the packed position one block above.
+     */
+    public static long above(long packed) {
+        return offset(packed, 0, 1, 0);
+    }
+
+    /**
+     * @param packed the packed position.
+     * @return the packed position one block below.
+     */
+    public static long below(long packed) {
+        return offset(packed, 0, -1, 0);
+    }
+
+    /**
+     * Calls {@code action} with each of the six neighbours of a packed position.
+     *
+     * @param packed the packed position.
+     * @param action the action to call for each neighbour.
+     */
+    public static void forEachNeighbour(long packed, LongConsumer action) {
+        forEachNeighbour(packed, DirectionHelpers.DIRECTIONS, action);
+    }
+
+    /**
+     * Calls {@code action} with the neighbours of a packed position in each of the given directions, for instance one of
+     * {@link DirectionHelpers#DIRECTIONS_NOT_UP}.
+     *
+     * @param packed     the packed position.
+     * @param directions the directions of the neighbours to visit.
+     * @param action     the action to call for each neighbour.
+     */
+    public static void forEachNeighbour(long packed, Direction[] directions, LongConsumer action) {
+        final int x = getX(packed), y = getY(packed), z = getZ(packed);
+        for (Direction direction : directions) {
+            final int i = direction.ordinal();
+            action.accept(pack(x + DirectionHelpers.OFFSETS_X[i], y + DirectionHelpers.OFFSETS_Y[i], z + DirectionHelpers.OFFSETS_Z[i]));
+        }
+    }
+
+    /**
+     * Converts a quart position to a packed block position.
+     *
+     * @param x the x-coordinate of the quart position.
+     * @param y the y-coordinate of the quart position.
+     * @param z the z-coordinate of the quart position.
+     * @return the corresponding packed block position.
+     * @see WorldHelpers#quartToBlock(int, int, int)
+     */
+    public static long quartToBlock(int x, int y, int z) {
+        return pack(QuartPos.toBlock(x), QuartPos.toBlock(y), QuartPos.toBlock(z));
+    }
+
+    /**
+     * Converts a packed quart position to a packed block position.
+     *
+     * @param packedQuart the packed quart position.
+     * @return the corresponding packed block position.
+     */
+    public static long quartToBlock(long packedQuart) {
+        return quartToBlock(getX(packedQuart), getY(packedQuart), getZ(packedQuart));
+    }
+
+    /**
+     * Converts a packed block position to the packed quart position containing it.
+     *
+     * @param packed the packed block position.
+     * @return the corresponding packed quart position.
+     */
+    public static long blockToQuart(long packed) {
+        return pack(QuartPos.fromBlock(getX(packed)), QuartPos.fromBlock(getY(packed)), QuartPos.fromBlock(getZ(packed)));
+    }
+
+    /**
+     * Converts a packed block position to the packed {@link SectionPos} containing it.
+     *
+     * @param packed the packed block position.
+     * @return the packed section position, as in {@link SectionPos#asLong()}.
+     */
+    public static long blockToSection(long packed) {
+        return SectionPos.asLong(SectionPos.blockToSectionCoord(getX(packed)), SectionPos.blockToSectionCoord(getY(packed)), SectionPos.blockToSectionCoord(getZ(packed)));
+    }
+
+    /**
+     * Converts a packed block position to the packed {@link ChunkPos} containing it.
+     *
+     * @param packed the packed block position.
+     * @return the packed chunk position, as in {@link ChunkPos#toLong()}.
+     */
+    public static long blockToChunk(long packed) {
+        return ChunkPos.asLong(SectionPos.blockToSectionCoord(getX(packed)), SectionPos.blockToSectionCoord(getZ(packed)));
+    }
+
+    /**
+     * Returns the index of a packed block position within its 16x16x16 chunk section, in the same {@code y, z, x} order used by
+     * {@link net.minecraft.world.level.chunk.PalettedContainer}.
+     *
+     * @param packed the packed block position.
+     * @return the index within the section, in {@code [0, 4096)}.
+     */
+    public static int sectionIndex(long packed) {
+        return sectionIndex(getX(packed), getY(packed), getZ(packed));
+    }
+
+    /**
+     * Returns the index of a block position within its 16x16x16 chunk section, in {@code y, z, x} order.
+     *
+     * @param x the block x-coordinate.
+     * @param y the block y-coordinate.
+     * @param z the block z-coordinate.
+     * @return the index within the section, in {@code [0, 4096)}.
+     */
+    public static int sectionIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    /**
+     * Sets a mutable position to a packed position, and returns it. This is the bridge between packed positions and vanilla methods which
+     * require a {@link BlockPos}, allowing a single mutable position to be reused across many calls.
+     *
+     * @param cursor the mutable position to set.
+     * @param packed the packed position.
+     * @return {@code cursor}.
+     */
+    public static BlockPos.MutableBlockPos setMutable(BlockPos.MutableBlockPos cursor, long packed) {
+        return cursor.set(packed);
+    }
+}
@@ -47,18 +47,35 @@ public class WorldHelpers {
      * @param radius The radius within which the fire can spread.
      */
     public static void fireSpreaderTick(ServerLevel level, BlockPos pos, RandomSource random, int radius) {
+        fireSpreaderTick(level, pos.asLong(), random, radius);
+    }
+
+    /**
+     * Attempts to spread fire in a random direction around a specified packed position in the world.
+     * Unlike stepping a {@link BlockPos} with {@link BlockPos#relative(Direction)}, this walks a packed position and reuses a pair of
+     * mutable positions, so no positions are allocated per step.
+     *
+     * @param level  The server-level where the fire spread should occur.
+     * @param pos    The packed starting position for fire spreading, see {@link PackedPosHelpers}.
+     * @param random A random source for determining fire spread direction and chance.
+     * @param radius The radius within which the fire can spread.
+     */
+    public static void fireSpreaderTick(ServerLevel level, long pos, RandomSource random, int radius) {
         if (level.getGameRules().getBoolean(GameRules.RULE_DOFIRETICK)) {
+            final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+            final BlockPos.MutableBlockPos neighbour = new BlockPos.MutableBlockPos();
             for (int i = 0; i < radius; i++) {
-                pos = pos.relative(Direction.Plane.HORIZONTAL.getRandomDirection(random));
+                pos = PackedPosHelpers.relative(pos, Direction.Plane.HORIZONTAL.getRandomDirection(random));
                 if (level.getRandom().nextFloat() < 0.25F) {
-                    pos = pos.above();
+                    pos = PackedPosHelpers.above(pos);
                 }
-                final BlockState state = level.getBlockState(pos);
+                cursor.set(pos);
+                final BlockState state = level.getBlockState(cursor);
                 if (!state.isAir()) {
                     return;
                 }
-                if (hasFlammableNeighbours(level, pos)) {
-                    level.setBlockAndUpdate(pos, Blocks.FIRE.defaultBlockState());
+                if (hasFlammableNeighbours(level, cursor, neighbour)) {
+                    level.setBlockAndUpdate(cursor, Blocks.FIRE.defaultBlockState());
                     return;
                 }
             }
@@ -68,12 +85,12 @@ public class WorldHelpers {
     /**
      * Checks if there are any flammable blocks adjacent to the specified position.
      *
-     * @param level The level reader to check the blocks.
-     * @param pos   The position to check for flammable neighbors.
+     * @param level   The level reader to check the blocks.
+     * @param pos     The position to check for flammable neighbors.
+     * @param mutable A mutable position to reuse while visiting the neighbours.
      * @return {@code true} if there are flammable blocks adjacent to the position, otherwise {@code false}.
      */
-    private static boolean hasFlammableNeighbours(LevelReader level, BlockPos pos) {
-        BlockPos.MutableBlockPos mutable = new BlockPos.MutableBlockPos();
+    private static boolean hasFlammableNeighbours(LevelReader level, BlockPos pos, BlockPos.MutableBlockPos mutable) {
         for (Direction direction : DirectionHelpers.DIRECTIONS) {
             mutable.setWithOffset(pos, direction);
             if (level.getBlockState(mutable).isFlammable(level, mutable, direction.getOpposite())) {
@@ -95,6 +112,18 @@ public class WorldHelpers {
         level.playSound(null, pos, sound, SoundSource.BLOCKS, 1.0f + rand.nextFloat(), rand.nextFloat() + 0.7f + 0.3f);
     }
 
+    /**
+     * Plays a sound at the specified packed position in the given level.
+     *
+     * @param level The level to play the sound in.
+     * @param pos   The packed position to play the sound at, see {@link PackedPosHelpers}.
+     * @param sound The sound event to play.
+     */
+    public static void playSound(Level level, long pos, SoundEvent sound) {
+        var rand = level.getRandom();
+        level.playSound(null, PackedPosHelpers.getX(pos) + 0.5D, PackedPosHelpers.getY(pos) + 0.5D, PackedPosHelpers.getZ(pos) + 0.5D, sound, SoundSource.BLOCKS, 1.0f + rand.nextFloat(), rand.nextFloat() + 0.7f + 0.3f);
+    }
+
     /**
      * Plays the placement sound for the given block state at the specified position.
      *
@@ -130,6 +159,30 @@ public class WorldHelpers {
         return new BlockPos(x << 2, y << 2, z << 2);
     }
 
+    /**
+     * Converts a quart position to a packed block position, without allocating a {@link BlockPos}.
+     *
+     * @param x the x-coordinate of the quart position.
+     * @param y the y-coordinate of the quart position.
+     * @param z the z-coordinate of the quart position.
+     * @return the corresponding packed block position.
+     * @see PackedPosHelpers#quartToBlock(int, int, int)
+     */
+    public static long quartToBlockPacked(int x, int y, int z) {
+        return PackedPosHelpers.quartToBlock(x, y, z);
+    }
+
+    /**
+     * Converts a packed quart position to a packed block position.
+     *
+     * @param packedQuart the packed quart position.
+     * @return the corresponding packed block position.
+     * @see PackedPosHelpers#quartToBlock(long)
+     */
+    public static long quartToBlock(long packedQuart) {
+        return PackedPosHelpers.quartToBlock(packedQuart);
+    }
+
     /**
      * This exists to fix a horrible case of vanilla seeding, which led to noticeable issues of feature clustering.
      * The key issue was that features with a chance placement, applied sequentially, would appear to generate on the same chunk much more often than was expected.
@@ -153,6 +206,8 @@ public class WorldHelpers {
      * Blam, so the first nextFloat() between setSeed(n) and setSeed(n + 1) is that distance apart ^
      * Which as you can see... isn't that far from 0
      * </pre>
+     * This re-seeds a shared random, so it must be called sequentially. Where features are placed in parallel, or in no fixed order, use
+     * {@link FeatureSeeds} instead, which derives the same kind of independent per-feature seeds without any shared state.
      */
     public static void seedLargeFeatures(RandomSource random, long baseSeed, int index, int decoration) {
         random.setSeed(baseSeed);
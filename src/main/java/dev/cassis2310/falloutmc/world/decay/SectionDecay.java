@@ -0,0 +1,206 @@
+package dev.cassis2310.falloutmc.world.decay;
+
+import dev.cassis2310.falloutmc.util.blocks.BlockHelpers;
+import it.unimi.dsi.fastutil.objects.Reference2FloatOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.PalettedContainerRO;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Weathers whole chunk sections at once, by replacing blocks with decayed variants (bricks with cracked bricks, metal with rusted metal,
+ * slabs with air...) while keeping their shared properties.
+ * <p>
+ * Every replacement state is worked out once, when the decay is built, for every state of every block it affects (see
+ * {@link BlockHelpers#convertState(BlockState, Block)}). Applying the decay to a section then works at the level of its palette where it can:
+ * <ul>
+ *     <li>Sections which cannot contain any affected block are skipped, by checking only their palette.</li>
+ *     <li>Replacements which always happen are applied to the palette itself: the section is packed into its palette and storage, each
+ *     palette entry is replaced, and the section is rebuilt from the same storage. This costs the same however many blocks are replaced.</li>
+ *     <li>Only replacements which happen by chance need to visit each block, and only blocks of an affected state are changed.</li>
+ * </ul>
+ * If replacing the palette would merge two entries (for instance, a section containing both bricks and cracked bricks), it cannot be done
+ * in place, and the section falls back to replacing each block.
+ * <p>
+ * This writes straight into sections, without block updates, lighting, heightmap or client updates, so it is meant for use during world
+ * generation. Block states with block entities are never decayed. Instances are immutable, and can be shared between threads.
+ */
+public class SectionDecay {
+    /**
+     * @return A builder for a new decay.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final Reference2ObjectOpenHashMap<BlockState, BlockState> certain;
+    private final Reference2ObjectOpenHashMap<BlockState, BlockState> random;
+    private final Reference2FloatOpenHashMap<BlockState> chances;
+    private final Set<Block> certainBlocks;
+    private final Set<Block> randomBlocks;
+
+    private SectionDecay(Builder builder) {
+        this.certain = new Reference2ObjectOpenHashMap<>(builder.certain);
+        this.random = new Reference2ObjectOpenHashMap<>(builder.random);
+        this.chances = new Reference2FloatOpenHashMap<>(builder.chances);
+        this.certainBlocks = new ReferenceOpenHashSet<>(builder.certainBlocks);
+        this.randomBlocks = new ReferenceOpenHashSet<>(builder.randomBlocks);
+    }
+
+    /**
+     * @param state A block state.
+     * @return The state it decays into, or {@code null} if it does not decay.
+     */
+    @Nullable
+    public BlockState getReplacement(BlockState state) {
+        final BlockState replacement = certain.get(state);
+        return replacement != null ? replacement : random.get(state);
+    }
+
+    /**
+     * Decays every section of a chunk, and marks it as unsaved if anything changed.
+     *
+     * @param chunk  The chunk.
+     * @param random The random used for decay which happens by chance.
+     * @return The number of blocks changed.
+     */
+    public int apply(ChunkAccess chunk, RandomSource random) {
+        int changed = 0;
+        for (LevelChunkSection section : chunk.getSections()) {
+            changed += apply(section, random);
+        }
+        if (changed > 0) {
+            chunk.setUnsaved(true);
+        }
+        return changed;
+    }
+
+    /**
+     * Decays a single section. Certain replacements are applied first, then replacements by chance.
+     *
+     * @param section The section.
+     * @param random  The random used for decay which happens by chance.
+     * @return The number of blocks changed.
+     */
+    public int apply(LevelChunkSection section, RandomSource random) {
+        if (section.hasOnlyAir()) {
+            return 0;
+        }
+        int changed = 0;
+        if (!certain.isEmpty() && section.getStates().maybeHas(state -> certainBlocks.contains(state.getBlock()))) {
+            final int replaced = replacePalette(section);
+            changed += replaced >= 0 ? replaced : replaceEachBlock(section, certain, random);
+        }
+        if (!this.random.isEmpty() && section.getStates().maybeHas(state -> randomBlocks.contains(state.getBlock()))) {
+            changed += replaceEachBlock(section, this.random, random);
+        }
+        return changed;
+    }
+
+    /**
+     * Replaces the entries of a section's palette with their certain replacements.
+     *
+     * @return The number of blocks replaced, or {@code -1} if the replaced palette would have duplicate entries, so it could not be used.
+     */
+    private int replacePalette(LevelChunkSection section) {
+        final PalettedContainer<BlockState> states = section.getStates();
+        final PalettedContainerRO.PackedData<BlockState> packed = states.pack(Block.BLOCK_STATE_REGISTRY, PalettedContainer.Strategy.SECTION_STATES);
+        final List<BlockState> entries = new ArrayList<>(packed.paletteEntries().size());
+        final Set<BlockState> seen = new ReferenceOpenHashSet<>(packed.paletteEntries().size());
+        for (BlockState entry : packed.paletteEntries()) {
+            final BlockState replacement = certain.getOrDefault(entry, entry);
+            if (!seen.add(replacement)) {
+                return -1;
+            }
+            entries.add(replacement);
+        }
+        final PalettedContainer<BlockState> replaced = PalettedContainer.unpack(Block.BLOCK_STATE_REGISTRY, PalettedContainer.Strategy.SECTION_STATES, new PalettedContainerRO.PackedData<>(entries, packed.storage()))
+            .result()
+            .orElse(null);
+        if (replaced == null) {
+            return -1;
+        }
+        final int[] changed = {0};
+        states.count((state, count) -> {
+            if (certain.containsKey(state)) {
+                changed[0] += count;
+            }
+        });
+        section.states = replaced;
+        section.recalcBlockCounts();
+        return changed[0];
+    }
+
+    private int replaceEachBlock(LevelChunkSection section, Reference2ObjectOpenHashMap<BlockState, BlockState> replacements, RandomSource random) {
+        int changed = 0;
+        section.acquire();
+        try {
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        final BlockState state = section.getBlockState(x, y, z);
+                        final BlockState replacement = replacements.get(state);
+                        if (replacement != null && (replacements == certain || random.nextFloat() < chances.getFloat(state))) {
+                            section.setBlockState(x, y, z, replacement, false);
+                            changed++;
+                        }
+                    }
+                }
+            }
+        } finally {
+            section.release();
+        }
+        return changed;
+    }
+
+    public static class Builder {
+        private final Reference2ObjectOpenHashMap<BlockState, BlockState> certain = new Reference2ObjectOpenHashMap<>();
+        private final Reference2ObjectOpenHashMap<BlockState, BlockState> random = new Reference2ObjectOpenHashMap<>();
+        private final Reference2FloatOpenHashMap<BlockState> chances = new Reference2FloatOpenHashMap<>();
+        private final Set<Block> certainBlocks = new ReferenceOpenHashSet<>();
+        private final Set<Block> randomBlocks = new ReferenceOpenHashSet<>();
+
+        /**
+         * Always replaces one block with another, keeping every property the two blocks share.
+         *
+         * @return this
+         */
+        public Builder replace(Block from, Block to) {
+            return replace(from, to, 1f);
+        }
+
+        /**
+         * Replaces one block with another, by chance, keeping every property the two blocks share.
+         *
+         * @param chance The chance that each block is replaced, in {@code [0, 1]}.
+         * @return this
+         */
+        public Builder replace(Block from, Block to, float chance) {
+            final boolean isCertain = chance >= 1f;
+            for (BlockState state : from.getStateDefinition().getPossibleStates()) {
+                if (!state.hasBlockEntity()) {
+                    (isCertain ? certain : random).put(state, BlockHelpers.convertState(state, to));
+                    if (!isCertain) {
+                        chances.put(state, chance);
+                    }
+                }
+            }
+            (isCertain ? certainBlocks : randomBlocks).add(from);
+            return this;
+        }
+
+        public SectionDecay build() {
+            return new SectionDecay(this);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package dev.cassis2310.falloutmc.world.structures;
+
+import dev.cassis2310.falloutmc.util.worlds.PackedPosHelpers;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.WorldGenLevel;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.ChunkAccess;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The blocks of a multi-template structure, with every template already resolved, rotated, mirrored and positioned, and split up by the
+ * chunk section they fall in. Placing the part of the structure in a chunk only copies the blocks of that chunk's sections.
+ * <p>
+ * Instances are immutable once built, and can be shared between threads.
+ */
+public class PreparedStructure {
+    private final Long2ObjectMap<List<Section>> sectionsByChunk;
+    private final int blockCount;
+
+    PreparedStructure(Long2ObjectMap<List<Section>> sectionsByChunk, int blockCount) {
+        this.sectionsByChunk = sectionsByChunk;
+        this.blockCount = blockCount;
+    }
+
+    /**
+     * @return The total number of blocks in the structure.
+     */
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @param chunkPos The chunk position.
+     * @return {@code true} if any blocks of the structure lie in the chunk.
+     */
+    public boolean intersects(ChunkPos chunkPos) {
+        return sectionsByChunk.containsKey(chunkPos.toLong());
+    }
+
+    /**
+     * Places the part of the structure which lies in one chunk. Called from a feature's {@code place} method, once per chunk.
+     *
+     * @param level    The level being generated.
+     * @param chunkPos The chunk to place blocks in.
+     * @return The number of blocks placed.
+     */
+    public int placeInChunk(WorldGenLevel level, ChunkPos chunkPos) {
+        final List<Section> sections = sectionsByChunk.get(chunkPos.toLong());
+        if (sections == null) {
+            return 0;
+        }
+        final ChunkAccess chunk = level.getChunk(chunkPos.x, chunkPos.z);
+        final BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos();
+        int placed = 0;
+        for (Section section : sections) {
+            final int originX = SectionPos.sectionToBlockCoord(SectionPos.x(section.pos));
+            final int originY = SectionPos.sectionToBlockCoord(SectionPos.y(section.pos));
+            final int originZ = SectionPos.sectionToBlockCoord(SectionPos.z(section.pos));
+            if (chunk.isOutsideBuildHeight(originY)) {
+                continue;
+            }
+            for (int i = 0; i < section.cells.length; i++) {
+                final int cell = section.cells[i];
+                cursor.set(originX + (cell & 15), originY + ((cell >> 8) & 15), originZ + ((cell >> 4) & 15));
+                chunk.setBlockState(cursor, section.states[i], false);
+                placed++;
+            }
+            for (BlockEntityData data : section.blockEntities) {
+                PackedPosHelpers.setMutable(cursor, data.pos);
+                final CompoundTag tag = data.tag.copy();
+                tag.putInt("x", cursor.getX());
+                tag.putInt("y", cursor.getY());
+                tag.putInt("z", cursor.getZ());
+                // A proto chunk does not create block entities when blocks are set, so hand it the data to create one from when promoted
+                final BlockEntity blockEntity = chunk.getBlockEntity(cursor);
+                if (blockEntity != null) {
+                    blockEntity.loadWithComponents(tag, level.registryAccess());
+                    blockEntity.setChanged();
+                } else {
+                    chunk.setBlockEntityNbt(tag);
+                }
+            }
+        }
+        return placed;
+    }
+
+    /**
+     * The blocks of one chunk section. Cells are indexed as in {@link PackedPosHelpers#sectionIndex(int, int, int)}.
+     */
+    record Section(long pos, short[] cells, BlockState[] states, List<BlockEntityData> blockEntities) {}
+
+    record BlockEntityData(long pos, CompoundTag tag) {}
+
+    /**
+     * Collects blocks into sections. Later blocks replace earlier blocks at the same position, as if the templates were placed in order.
+     */
+    static class Builder {
+        private final Long2ObjectOpenHashMap<SectionBuilder> sections = new Long2ObjectOpenHashMap<>();
+
+        void add(BlockPos pos, BlockState state, @Nullable CompoundTag blockEntityTag) {
+            sections.computeIfAbsent(SectionPos.asLong(pos), SectionBuilder::new).add(pos, state, blockEntityTag);
+        }
+
+        PreparedStructure build() {
+            final Long2ObjectOpenHashMap<List<Section>> byChunk = new Long2ObjectOpenHashMap<>();
+            int blockCount = 0;
+            for (SectionBuilder builder : sections.values()) {
+                final Section section = builder.build();
+                blockCount += section.cells.length;
+                byChunk.computeIfAbsent(ChunkPos.asLong(SectionPos.x(section.pos), SectionPos.z(section.pos)), key -> new ArrayList<>()).add(section);
+            }
+            for (Long2ObjectMap.Entry<List<Section>> entry : byChunk.long2ObjectEntrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+            return new PreparedStructure(byChunk, blockCount);
+        }
+    }
+
+    private static class SectionBuilder {
+        private final long pos;
+        private final BlockState[] states = new BlockState[16 * 16 * 16];
+        private final Long2ObjectOpenHashMap<CompoundTag> blockEntities = new Long2ObjectOpenHashMap<>();
+        private int count;
+
+        SectionBuilder(long pos) {
+            this.pos = pos;
+        }
+
+        void add(BlockPos pos, BlockState state, @Nullable CompoundTag blockEntityTag) {
+            final int cell = PackedPosHelpers.sectionIndex(pos.getX(), pos.getY(), pos.getZ());
+            if (states[cell] == null) {
+                count++;
+            }
+            states[cell] = state;
+            if (blockEntityTag != null) {
+                blockEntities.put(pos.asLong(), blockEntityTag);
+            } else {
+                blockEntities.remove(pos.asLong());
+            }
+        }
+
+        Section build() {
+            final short[] cells = new short[count];
+            final BlockState[] packedStates = new BlockState[count];
+            int next = 0;
+            for (int cell = 0; cell < states.length; cell++) {
+                if (states[cell] != null) {
+                    cells[next] = (short) cell;
+                    packedStates[next++] = states[cell];
+                }
+            }
+            final List<BlockEntityData> entities = new ArrayList<>(blockEntities.size());
+            for (Long2ObjectMap.Entry<CompoundTag> entry : blockEntities.long2ObjectEntrySet()) {
+                entities.add(new BlockEntityData(entry.getLongKey(), entry.getValue()));
+            }
+            return new Section(pos, cells, packedStates, entities);
+        }
+    }
+}
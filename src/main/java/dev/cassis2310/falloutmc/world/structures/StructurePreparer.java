@@ -0,0 +1,111 @@
+package dev.cassis2310.falloutmc.world.structures;
+
+import dev.cassis2310.falloutmc.util.worlds.FeatureSeeds;
+import net.minecraft.Util;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.levelgen.XoroshiroRandomSource;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructurePlaceSettings;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplate;
+import net.minecraft.world.level.levelgen.structure.templatesystem.StructureTemplateManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Prepares large multi-template structures (such as cities) on background threads, so that chunk generation only has to copy precomputed
+ * blocks with {@link PreparedStructure#placeInChunk}.
+ * <p>
+ * Each structure is identified by a key, which should be its deterministic seed, for instance from
+ * {@link FeatureSeeds#featureSeed(long, int, int, int, int)} for the chunk the structure starts in. The same key must always describe the
+ * same list of pieces. Palettes are chosen with a random derived from the key, so preparation gives the same result on any thread.
+ * <p>
+ * A structure should be requested with {@link #prepare} as soon as its pieces are known (when its start is created), and then fetched
+ * again with {@link #prepare} from each chunk it is placed in. The first request for a chunk may have to wait for preparation to finish,
+ * but this is the only time chunk generation is blocked. The most recently used structures are cached, and the least recently used are
+ * evicted once the cache is full, so a structure spanning many chunks is only prepared once while they generate.
+ * <p>
+ * Structure processors are not applied, as they need access to the level.
+ */
+public class StructurePreparer {
+    private final StructureTemplateManager templates;
+    private final Executor executor;
+    private final Map<Long, CompletableFuture<PreparedStructure>> cache;
+
+    /**
+     * Creates a preparer which runs on the shared world generation background executor.
+     *
+     * @param templates    The template manager of the server.
+     * @param maxStructures The number of prepared structures to keep cached.
+     */
+    public StructurePreparer(StructureTemplateManager templates, int maxStructures) {
+        this(templates, maxStructures, Util.backgroundExecutor());
+    }
+
+    public StructurePreparer(StructureTemplateManager templates, int maxStructures, Executor executor) {
+        this.templates = templates;
+        this.executor = executor;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CompletableFuture<PreparedStructure>> eldest) {
+                return size() > maxStructures;
+            }
+        };
+    }
+
+    /**
+     * Starts preparing a structure, or returns the existing preparation for the same key.
+     *
+     * @param key    The deterministic seed of the structure.
+     * @param pieces The templates which make up the structure, in placement order.
+     * @return A future which completes with the prepared structure.
+     */
+    public CompletableFuture<PreparedStructure> prepare(long key, List<TemplatePiece> pieces) {
+        synchronized (cache) {
+            return cache.computeIfAbsent(key, k -> CompletableFuture.supplyAsync(() -> build(key, pieces), executor));
+        }
+    }
+
+    /**
+     * Prepares a structure, waiting for it if necessary. Used from a feature's {@code place} method.
+     *
+     * @see #prepare(long, List)
+     */
+    public PreparedStructure getOrPrepare(long key, List<TemplatePiece> pieces) {
+        return prepare(key, pieces).join();
+    }
+
+    /**
+     * Discards all prepared structures.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    private PreparedStructure build(long key, List<TemplatePiece> pieces) {
+        final PreparedStructure.Builder builder = new PreparedStructure.Builder();
+        for (int i = 0; i < pieces.size(); i++) {
+            final TemplatePiece piece = pieces.get(i);
+            final StructureTemplate template = templates.get(piece.template())
+                .orElseThrow(() -> new IllegalStateException("Missing structure template: " + piece.template()));
+            if (template.palettes.isEmpty()) {
+                continue;
+            }
+            final StructurePlaceSettings settings = new StructurePlaceSettings()
+                .setRotation(piece.rotation())
+                .setMirror(piece.mirror())
+                .setRandom(new XoroshiroRandomSource(FeatureSeeds.split(key, i)));
+            for (StructureTemplate.StructureBlockInfo info : settings.getRandomPalette(template.palettes, piece.pos()).blocks()) {
+                final BlockPos pos = StructureTemplate.calculateRelativePosition(settings, info.pos()).offset(piece.pos());
+                final BlockState state = info.state().mirror(piece.mirror()).rotate(piece.rotation());
+                builder.add(pos, state, info.nbt());
+            }
+        }
+        return builder.build();
+    }
+}
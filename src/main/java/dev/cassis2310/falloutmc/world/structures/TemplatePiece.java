@@ -0,0 +1,16 @@
+package dev.cassis2310.falloutmc.world.structures;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.block.Mirror;
+import net.minecraft.world.level.block.Rotation;
+
+/**
+ * One structure template to be placed as part of a larger structure.
+ *
+ * @param template The id of the template.
+ * @param pos      The position of the template's origin in the world.
+ * @param rotation The rotation to apply.
+ * @param mirror   The mirror to apply.
+ */
+public record TemplatePiece(ResourceLocation template, BlockPos pos, Rotation rotation, Mirror mirror) {}
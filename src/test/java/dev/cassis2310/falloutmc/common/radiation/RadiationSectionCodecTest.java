@@ -0,0 +1,200 @@
+package dev.cassis2310.falloutmc.common.radiation;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RadiationSectionCodecTest {
+    private static final int MASK_LENGTH = ChunkRadiation.SECTION_SIZE / Long.SIZE;
+
+    @Test
+    public void testFullRoundTrip() {
+        final byte[] levels = smoothLevels(new Random(1));
+        final ByteBuf buffer = Unpooled.buffer();
+        RadiationSectionCodec.encodeFull(buffer, levels);
+
+        assertArrayEquals(levels, RadiationSectionCodec.decode(buffer, null));
+        assertEquals(0, buffer.readableBytes());
+    }
+
+    @Test
+    public void testFullRoundTripOverwritesExistingLevels() {
+        final byte[] levels = smoothLevels(new Random(2));
+        final byte[] existing = new byte[ChunkRadiation.SECTION_SIZE];
+        Arrays.fill(existing, (byte) 99);
+        final ByteBuf buffer = Unpooled.buffer();
+        RadiationSectionCodec.encodeFull(buffer, levels);
+
+        assertSame(existing, RadiationSectionCodec.decode(buffer, existing));
+        assertArrayEquals(levels, existing);
+    }
+
+    @Test
+    public void testExtremeLevelsRoundTrip() {
+        final byte[] levels = new byte[ChunkRadiation.SECTION_SIZE];
+        for (int cell = 0; cell < levels.length; cell++) {
+            levels[cell] = (byte) (cell % 3 == 0 ? ChunkRadiation.MAX_LEVEL : cell % 3 == 1 ? 0 : 1);
+        }
+        final ByteBuf buffer = Unpooled.buffer();
+        RadiationSectionCodec.encodeFull(buffer, levels);
+
+        assertArrayEquals(levels, RadiationSectionCodec.decode(buffer, null));
+    }
+
+    @Test
+    public void testClearedRoundTrip() {
+        final ByteBuf buffer = Unpooled.buffer();
+        RadiationSectionCodec.encodeFull(buffer, null);
+
+        assertEquals(1, buffer.readableBytes());
+        assertNull(RadiationSectionCodec.decode(buffer, new byte[ChunkRadiation.SECTION_SIZE]));
+    }
+
+    @Test
+    public void testUniformSectionIsSmall() {
+        final byte[] levels = new byte[ChunkRadiation.SECTION_SIZE];
+        Arrays.fill(levels, (byte) 7);
+        final ByteBuf buffer = Unpooled.buffer();
+        RadiationSectionCodec.encodeFull(buffer, levels);
+
+        assertTrue(buffer.readableBytes() <= 16, "Uniform section encoded to " + buffer.readableBytes() + " bytes");
+        assertArrayEquals(levels, RadiationSectionCodec.decode(buffer, null));
+    }
+
+    @Test
+    public void testZeroSectionRoundTrip() {
+        final byte[] levels = new byte[ChunkRadiation.SECTION_SIZE];
+        final byte[] existing = smoothLevels(new Random(3));
+        final ByteBuf buffer = Unpooled.buffer();
+        RadiationSectionCodec.encodeFull(buffer, levels);
+
+        assertArrayEquals(levels, RadiationSectionCodec.decode(buffer, existing));
+    }
+
+    @Test
+    public void testDeltaRoundTrip() {
+        final Random random = new Random(4);
+        final byte[] before = smoothLevels(random);
+        final byte[] after = before.clone();
+        final long[] changed = new long[MASK_LENGTH];
+        // Scattered single cells, and a few longer runs, including ones touching either end of the section
+        for (int i = 0; i < 200; i++) {
+            change(after, changed, random.nextInt(ChunkRadiation.SECTION_SIZE), random);
+        }
+        for (int cell = 0; cell < 40; cell++) {
+            change(after, changed, cell, random);
+        }
+        for (int cell = 1000; cell < 1300; cell++) {
+            change(after, changed, cell, random);
+        }
+        for (int cell = ChunkRadiation.SECTION_SIZE - 70; cell < ChunkRadiation.SECTION_SIZE; cell++) {
+            change(after, changed, cell, random);
+        }
+
+        final ByteBuf buffer = Unpooled.buffer();
+        RadiationSectionCodec.encode(buffer, after, changed);
+        final byte[] client = before.clone();
+
+        assertSame(client, RadiationSectionCodec.decode(buffer, client));
+        assertArrayEquals(after, client);
+        assertEquals(0, buffer.readableBytes());
+    }
+
+    @Test
+    public void testDeltaOnlyTouchesChangedCells() {
+        final byte[] after = new byte[ChunkRadiation.SECTION_SIZE];
+        Arrays.fill(after, (byte) 50);
+        final long[] changed = new long[MASK_LENGTH];
+        set(changed, 5);
+        set(changed, 64);
+        set(changed, 65);
+
+        final ByteBuf buffer = Unpooled.buffer();
+        RadiationSectionCodec.encode(buffer, after, changed);
+        final byte[] client = new byte[ChunkRadiation.SECTION_SIZE];
+        RadiationSectionCodec.decode(buffer, client);
+
+        for (int cell = 0; cell < client.length; cell++) {
+            assertEquals(cell == 5 || cell == 64 || cell == 65 ? 50 : 0, client[cell], "Cell " + cell);
+        }
+    }
+
+    @Test
+    public void testEmptyDeltaRoundTrip() {
+        final byte[] levels = smoothLevels(new Random(5));
+        final ByteBuf buffer = Unpooled.buffer();
+        RadiationSectionCodec.encode(buffer, levels, new long[MASK_LENGTH]);
+        final byte[] client = levels.clone();
+
+        assertArrayEquals(levels, RadiationSectionCodec.decode(buffer, client));
+        assertEquals(0, buffer.readableBytes());
+    }
+
+    @Test
+    public void testSeveralSectionsInOneBuffer() {
+        final byte[] first = smoothLevels(new Random(6));
+        final byte[] second = smoothLevels(new Random(7));
+        final ByteBuf buffer = Unpooled.buffer();
+        RadiationSectionCodec.encodeFull(buffer, first);
+        RadiationSectionCodec.encodeFull(buffer, null);
+        RadiationSectionCodec.encodeFull(buffer, second);
+
+        assertArrayEquals(first, RadiationSectionCodec.decode(buffer, null));
+        assertNull(RadiationSectionCodec.decode(buffer, null));
+        assertArrayEquals(second, RadiationSectionCodec.decode(buffer, null));
+    }
+
+    @Test
+    public void testUnknownModeIsRejected() {
+        final ByteBuf buffer = Unpooled.buffer();
+        buffer.writeByte(42);
+
+        assertThrows(IllegalArgumentException.class, () -> RadiationSectionCodec.decode(buffer, null));
+    }
+
+    @Test
+    public void testOutOfBoundsRunIsRejected() {
+        final ByteBuf buffer = Unpooled.buffer();
+        buffer.writeByte(RadiationSectionCodec.RUNS);
+        buffer.writeByte(1); // One run
+        buffer.writeByte(0); // Skipping nothing
+        buffer.writeByte(0x81); // Of length 4097, as a two byte var int
+        buffer.writeByte(0x20);
+
+        assertThrows(IllegalArgumentException.class, () -> RadiationSectionCodec.decode(buffer, null));
+    }
+
+    /**
+     * Levels falling off with distance from a few sources, as the propagator produces.
+     */
+    private static byte[] smoothLevels(Random random) {
+        final byte[] levels = new byte[ChunkRadiation.SECTION_SIZE];
+        final int[][] sources = new int[3][];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = new int[] {random.nextInt(16), random.nextInt(16), random.nextInt(16), 100 + random.nextInt(156)};
+        }
+        for (int cell = 0; cell < levels.length; cell++) {
+            final int x = cell & 15, y = (cell >> 8) & 15, z = (cell >> 4) & 15;
+            int level = 0;
+            for (int[] source : sources) {
+                level = Math.max(level, source[3] - 8 * (Math.abs(x - source[0]) + Math.abs(y - source[1]) + Math.abs(z - source[2])));
+            }
+            levels[cell] = (byte) level;
+        }
+        return levels;
+    }
+
+    private static void change(byte[] levels, long[] changed, int cell, Random random) {
+        levels[cell] = (byte) random.nextInt(ChunkRadiation.MAX_LEVEL + 1);
+        set(changed, cell);
+    }
+
+    private static void set(long[] bits, int index) {
+        bits[index >> 6] |= 1L << index;
+    }
+}
@@ -0,0 +1,161 @@
+package dev.cassis2310.falloutmc.util.worlds;
+
+import net.minecraft.util.RandomSource;
+import net.minecraft.world.level.levelgen.LegacyRandomSource;
+import net.minecraft.world.level.levelgen.WorldgenRandom;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FeatureSeedsTest {
+    private static final long WORLD_SEED = 8675309L;
+    private static final int CHUNKS = 448; // A 448 x 448 area, about 200k chunks
+    private static final float CHANCE = 0.05f;
+
+    @Test
+    public void testSeedsAreDeterministic() {
+        assertEquals(FeatureSeeds.featureSeed(WORLD_SEED, 12, -40, 3, 7), FeatureSeeds.featureSeed(WORLD_SEED, 12, -40, 3, 7));
+
+        final RandomSource first = FeatureSeeds.featureRandom(WORLD_SEED, 12, -40, 3, 7);
+        final RandomSource second = FeatureSeeds.featureRandom(WORLD_SEED, 12, -40, 3, 7);
+        for (int i = 0; i < 16; i++) {
+            assertEquals(first.nextLong(), second.nextLong());
+        }
+    }
+
+    @Test
+    public void testInputsAreNotInterchangeable() {
+        final long seed = FeatureSeeds.featureSeed(WORLD_SEED, 1, 2, 3, 4);
+        assertNotEquals(seed, FeatureSeeds.featureSeed(WORLD_SEED, 2, 1, 3, 4));
+        assertNotEquals(seed, FeatureSeeds.featureSeed(WORLD_SEED, 1, 2, 4, 3));
+        assertNotEquals(seed, FeatureSeeds.featureSeed(WORLD_SEED + 1, 1, 2, 3, 4));
+        assertNotEquals(FeatureSeeds.split(seed, 0), FeatureSeeds.split(seed, 1));
+    }
+
+    /**
+     * Reproduces the clustering described in {@link WorldHelpers#seedLargeFeatures(RandomSource, long, int, int)}: vanilla's legacy feature
+     * seeding gives the features of a chunk seeds one apart, so their first rolls are nearly equal, and a rare feature almost always
+     * generates alongside another. This is the baseline the other tests improve on.
+     */
+    @Test
+    public void testLegacyFeatureSeedsCluster() {
+        final WorldgenRandom random = new WorldgenRandom(new LegacyRandomSource(0));
+        final int[] counts = countRareFeatures((chunkX, chunkZ, index) -> {
+            random.setFeatureSeed(random.setDecorationSeed(WORLD_SEED, chunkX << 4, chunkZ << 4), index, 0);
+            return random.nextFloat();
+        });
+        final double expected = (double) CHUNKS * CHUNKS * CHANCE * CHANCE;
+        assertTrue(counts[2] > 10 * expected, "Expected far more than " + expected + " co-occurrences, got " + counts[2]);
+    }
+
+    /**
+     * Two rare features in the same chunk should co-occur about as often as if they were independent.
+     */
+    @Test
+    public void testRareFeaturesDoNotCluster() {
+        assertDoNotCluster(countRareFeatures((chunkX, chunkZ, index) -> FeatureSeeds.floatAt(FeatureSeeds.featureSeed(WORLD_SEED, chunkX, chunkZ, index, 0), 0)));
+    }
+
+    /**
+     * The sequential fix for the same clustering, re-seeding a legacy random, should not cluster either.
+     */
+    @Test
+    public void testSeedLargeFeaturesDoesNotCluster() {
+        final WorldgenRandom random = new WorldgenRandom(new LegacyRandomSource(0));
+        assertDoNotCluster(countRareFeatures((chunkX, chunkZ, index) -> {
+            WorldHelpers.seedLargeFeatures(random, random.setDecorationSeed(WORLD_SEED, chunkX << 4, chunkZ << 4), index, 0);
+            return random.nextFloat();
+        }));
+    }
+
+    /**
+     * The same feature in neighbouring chunks should be uncorrelated, so features do not form lines or patches.
+     */
+    @Test
+    public void testNeighbouringChunksAreUncorrelated() {
+        double sumX = 0, sumZ = 0;
+        int count = 0;
+        for (int x = 0; x < CHUNKS - 1; x++) {
+            for (int z = 0; z < CHUNKS - 1; z++) {
+                final double here = FeatureSeeds.floatAt(FeatureSeeds.featureSeed(WORLD_SEED, x, z, 0, 0), 0) - 0.5;
+                sumX += here * (FeatureSeeds.floatAt(FeatureSeeds.featureSeed(WORLD_SEED, x + 1, z, 0, 0), 0) - 0.5);
+                sumZ += here * (FeatureSeeds.floatAt(FeatureSeeds.featureSeed(WORLD_SEED, x, z + 1, 0, 0), 0) - 0.5);
+                count++;
+            }
+        }
+        // The correlation of uniform values, each with variance 1/12, has a standard error of 1 / sqrt(count), so about 0.0022 here
+        final double correlationX = sumX / count * 12, correlationZ = sumZ / count * 12;
+        assertTrue(Math.abs(correlationX) < 0.01, "Correlation along x: " + correlationX);
+        assertTrue(Math.abs(correlationZ) < 0.01, "Correlation along z: " + correlationZ);
+    }
+
+    @Test
+    public void testIntAtIsUniform() {
+        final int buckets = 16, samples = 160_000;
+        final int[] counts = new int[buckets];
+        final long seed = FeatureSeeds.featureSeed(WORLD_SEED, 0, 0, 0, 0);
+        for (int i = 0; i < samples; i++) {
+            final int value = FeatureSeeds.intAt(seed, i, buckets);
+            assertTrue(value >= 0 && value < buckets, "Out of bounds: " + value);
+            counts[value]++;
+        }
+        final double expected = (double) samples / buckets;
+        double chiSquared = 0;
+        for (int count : counts) {
+            chiSquared += (count - expected) * (count - expected) / expected;
+        }
+        // The 99.9th percentile of the chi-squared distribution with 15 degrees of freedom
+        assertTrue(chiSquared < 37.7, "Chi-squared: " + chiSquared);
+    }
+
+    @Test
+    public void testFloatAtIsInRange() {
+        final long seed = FeatureSeeds.featureSeed(WORLD_SEED, 5, 5, 0, 0);
+        for (int i = 0; i < 10_000; i++) {
+            final float value = FeatureSeeds.floatAt(seed, i);
+            assertTrue(value >= 0 && value < 1, "Out of range: " + value);
+        }
+    }
+
+    /**
+     * Rolls two features in every chunk, each generating with {@link #CHANCE}.
+     *
+     * @return The number of chunks the first feature generated in, the second, and both.
+     */
+    private static int[] countRareFeatures(FeatureRoll roll) {
+        final int[] counts = new int[3];
+        for (int x = 0; x < CHUNKS; x++) {
+            for (int z = 0; z < CHUNKS; z++) {
+                final boolean a = roll.roll(x, z, 0) < CHANCE;
+                final boolean b = roll.roll(x, z, 1) < CHANCE;
+                counts[0] += a ? 1 : 0;
+                counts[1] += b ? 1 : 0;
+                counts[2] += a && b ? 1 : 0;
+            }
+        }
+        return counts;
+    }
+
+    private static void assertDoNotCluster(int[] counts) {
+        final double total = (double) CHUNKS * CHUNKS;
+        assertWithin(total * CHANCE, counts[0], "first feature");
+        assertWithin(total * CHANCE, counts[1], "second feature");
+        assertWithin(total * CHANCE * CHANCE, counts[2], "co-occurrences");
+    }
+
+    /**
+     * Checks that a count is within five standard deviations of its expected value, treating each trial as independent.
+     */
+    private static void assertWithin(double expected, int actual, String what) {
+        final double tolerance = 5 * Math.sqrt(expected);
+        assertTrue(Math.abs(actual - expected) < tolerance, "Expected " + expected + " " + what + ", got " + actual);
+    }
+
+    @FunctionalInterface
+    interface FeatureRoll {
+        /**
+         * @return The first float rolled for the feature with the given index in a chunk.
+         */
+        float roll(int chunkX, int chunkZ, int index);
+    }
+}